@@ -0,0 +1,39 @@
+package benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import heuristics.*;
+import structures.*;
+
+// Time taken to generate the corner heuristic table with each of the engines
+// of PatternGenerator.  A single generation takes a while, so this runs once,
+// in a JVM with enough heap for the queue of the byQueue engine
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CornerBfsBenchmark {
+    // the engine to measure: "levels", "parallel" (levels on the threads of
+    // the common pool) or "queue"
+    @Param({"levels", "parallel", "queue"})
+    public String engine;
+	
+    @Benchmark
+    public MyNibbleTable generate() {
+	PatternSpace space = new CornerSpace();
+	MyNibbleTable table;
+	if (engine.equals("queue"))
+	    table = PatternGenerator.byQueue(space);
+	else if (engine.equals("parallel"))
+	    table = PatternGenerator.byLevels(space, ForkJoinPool.commonPool());
+	else
+	    table = PatternGenerator.byLevels(space);
+	CornerHeuristic.checkDistances(table);
+	return table;
+    }
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import heuristics.*;
+import rotations.*;
+
+// Latency of a heuristic lookup, under two access patterns:
+//
+//   random: cubes spread over the whole state space, so nearly every lookup
+//           misses the caches (the worst case)
+//   walk:   each cube is one move from the last, as in the search, which
+//           looks up the neighbors of a cube one after another
+//
+// The walk also includes the cost of the move itself (see RotationBenchmark)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicBenchmark {
+    // the heuristic to measure: "corners", "edges1", "edges2" or "max" (the
+    // combination the solver uses)
+    @Param({"corners", "edges1", "max"})
+    public String table;
+	
+    private Heuristic heuristic;
+	
+    // the random cubes, whose number is a power of 2
+    private long[] cornerCubes = new long[1 << 16];
+    private long[] edgeCubes = new long[1 << 16];
+    private int next;
+	
+    // the current cube of the walk, and the moves it takes
+    private long cornerCube;
+    private long edgeCube;
+    private int[] moves = new int[1024];
+	
+    @Setup
+    public void setup() {
+	if (table.equals("corners"))
+	    heuristic = Tables.corners();
+	else if (table.equals("edges1"))
+	    heuristic = Tables.edges("edges1.pdb", EdgeHeuristic.FIRST_EDGES);
+	else if (table.equals("edges2"))
+	    heuristic = Tables.edges("edges2.pdb", EdgeHeuristic.SECOND_EDGES);
+	else
+	    heuristic = Tables.solver();
+	Random random = new Random(1);
+	for (int i = 0; i < cornerCubes.length; i++) {
+	    long[] cube = Scrambles.scramble(random, 30);
+	    cornerCubes[i] = cube[0];
+	    edgeCubes[i] = cube[1];
+	}
+	for (int i = 0; i < moves.length; i++)
+	    moves[i] = random.nextInt(Moves.NUM_MOVES);
+	cornerCube = cornerCubes[0];
+	edgeCube = edgeCubes[0];
+    }
+	
+    @Benchmark
+    public int random() {
+	int i = next++ & (cornerCubes.length - 1);
+	return heuristic.estimate(cornerCubes[i], edgeCubes[i]);
+    }
+	
+    @Benchmark
+    public int walk() {
+	int move = moves[next++ & (moves.length - 1)];
+	cornerCube = CornerCubeMoves.rotate(cornerCube, move);
+	edgeCube = EdgeCubeMoves.rotate(edgeCube, move);
+	return heuristic.estimate(cornerCube, edgeCube);
+    }
+}
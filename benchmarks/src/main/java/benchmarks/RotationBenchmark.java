@@ -0,0 +1,60 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import heuristics.*;
+import rotations.*;
+
+// Throughput of a single move, made on the packed corner and edge cubes (as
+// the search does) and on the corner coordinates (as the corner BFS does).
+// Each operation makes the next move of a fixed random sequence on the
+// result of the last one, so the moves can't be hoisted out of the loop
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RotationBenchmark {
+    // the move sequence, whose length is a power of 2
+    private int[] moves = new int[1024];
+    private int next;
+	
+    private long cornerCube;
+    private long edgeCube;
+    private int cornerIndex;
+	
+    @Setup
+    public void setup() {
+	Random random = new Random(1);
+	for (int i = 0; i < moves.length; i++)
+	    moves[i] = random.nextInt(Moves.NUM_MOVES);
+	long[] cube = Scrambles.scramble(random, 30);
+	cornerCube = cube[0];
+	edgeCube = cube[1];
+	cornerIndex = CornerIndexer.rank(cornerCube);
+    }
+	
+    // returns the next move of the sequence
+    private int nextMove() {
+	return moves[next++ & (moves.length - 1)];
+    }
+	
+    @Benchmark
+    public long cornerCube() {
+	return cornerCube = CornerCubeMoves.rotate(cornerCube, nextMove());
+    }
+	
+    @Benchmark
+    public long edgeCube() {
+	return edgeCube = EdgeCubeMoves.rotate(edgeCube, nextMove());
+    }
+	
+    @Benchmark
+    public int cornerCoordinates() {
+	return cornerIndex = CoordinateMoves.moveCorners(cornerIndex, nextMove());
+    }
+}
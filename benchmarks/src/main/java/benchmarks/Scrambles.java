@@ -0,0 +1,44 @@
+package benchmarks;
+
+import java.util.Random;
+
+import rotations.*;
+
+// The fixed corpus of scrambled cubes the benchmarks run on.  The scrambles
+// are random move sequences drawn from a fixed seed, so every run (and every
+// version of the solver) sees the same cubes.  No move in a sequence undoes
+// or commutes with the one before it (see Moves.successors), so most of them
+// need the full number of moves to solve
+public class Scrambles {
+    // number of scrambles of each length in the corpus
+    public static final int CORPUS_SIZE = 4;
+	
+    // Returns the corpus for the specified scramble length: element i is
+    // {corner cube, edge cube} of the ith scramble
+    public static long[][] corpus(int length) {
+	Random random = new Random(2014 + length);
+	long[][] cubes = new long[CORPUS_SIZE][];
+	for (int i = 0; i < CORPUS_SIZE; i++)
+	    cubes[i] = scramble(random, length);
+	return cubes;
+    }
+	
+    // Returns {corner cube, edge cube} after the specified number of random
+    // moves from the goal
+    public static long[] scramble(Random random, int length) {
+	long cornerCube = CornerCubeMoves.GOAL;
+	long edgeCube = EdgeCubeMoves.GOAL;
+	int lastMove = Moves.NONE;
+	for (int i = 0; i < length; i++) {
+	    int successors = Moves.successors(lastMove);
+	    int move;
+	    do {
+		move = random.nextInt(Moves.NUM_MOVES);
+	    } while ((successors & (1 << move)) == 0);
+	    cornerCube = CornerCubeMoves.rotate(cornerCube, move);
+	    edgeCube = EdgeCubeMoves.rotate(edgeCube, move);
+	    lastMove = move;
+	}
+	return new long[] {cornerCube, edgeCube};
+    }
+}
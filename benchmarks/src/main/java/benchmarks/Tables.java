@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import heuristics.*;
+import structures.*;
+
+// Loads the heuristic tables for the benchmarks the same way Solver does:
+// from the directory given by the heuristics.dir system property (the working
+// directory by default), generating and saving any table that is missing.
+// Run the solver once first, so the benchmarks don't spend their setup
+// generating tables
+public class Tables {
+    // the directory holding the tables
+    private static final Path directory =
+	Paths.get(System.getProperty("heuristics.dir", "."));
+	
+    // returns the corner heuristic
+    public static Heuristic corners() {
+	MyNibbleTable table = load("corners.pdb", CornerHeuristic.TABLE_ID);
+	if (table != null)
+	    return new CornerHeuristic(table);
+	CornerHeuristic heuristic = new CornerHeuristic();
+	save(heuristic.getTable(), CornerHeuristic.TABLE_ID, "corners.pdb");
+	return heuristic;
+    }
+	
+    // returns the heuristic for the specified edge cubies, stored in the
+    // specified file
+    public static Heuristic edges(String fileName, int[] edges) {
+	long tableId = EdgeHeuristic.tableId(edges);
+	MyNibbleTable table = load(fileName, tableId);
+	if (table != null)
+	    return new EdgeHeuristic(edges, table);
+	EdgeHeuristic heuristic = new EdgeHeuristic(edges);
+	save(heuristic.getTable(), tableId, fileName);
+	return heuristic;
+    }
+	
+    // returns the heuristic the solver uses
+    public static Heuristic solver() {
+	return HeuristicLoader.load(directory);
+    }
+	
+    // returns the perimeter table of the specified radius
+    public static PerimeterTable perimeter(int radius) {
+	return HeuristicLoader.loadPerimeter(
+	    directory.resolve(HeuristicLoader.PERIMETER_FILE), radius);
+    }
+	
+    // returns the table in the specified file, or null if it can't be used
+    private static MyNibbleTable load(String fileName, long tableId) {
+	try {
+	    return HeuristicFile.load(directory.resolve(fileName), tableId, false);
+	} catch (IOException e) {
+	    return null;
+	}
+    }
+	
+    // saves the table to the specified file, if possible
+    private static void save(MyNibbleTable table, long tableId, String fileName) {
+	try {
+	    HeuristicFile.save(table, tableId, directory.resolve(fileName));
+	} catch (IOException e) {
+	    System.out.println("Couldn't save " + fileName + ": " + e.getMessage());
+	}
+    }
+}
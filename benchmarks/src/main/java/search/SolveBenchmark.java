@@ -0,0 +1,78 @@
+package search;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openjdk.jmh.annotations.*;
+
+import benchmarks.*;
+import heuristics.*;
+import rotations.*;
+import structures.*;
+
+// End to end solve time for the scrambles of benchmarks.Scrambles, with the
+// heuristic the solver uses.  An operation solves the whole corpus for one
+// scramble length, so the score is the number of corpora solved per second.
+// The nodes expanded are reported alongside, also per second.  Each length
+// is solved without a perimeter table and with the solver's one, to show what
+// ending the searches near the goal saves.
+//
+// This lives in package search so that it can run the IDA* iterations itself
+// (as CubeSolver does, but without its limits, metrics and logging)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SolveBenchmark {
+    // number of random moves in the scrambles
+    @Param({"6", "7", "8", "9", "10", "11", "12"})
+    public int length;
+	
+    // radius of the perimeter table (see heuristics.PerimeterTable), or 0
+    @Param({"0", "5"})
+    public int perimeter;
+	
+    private Heuristic heuristic;
+    private PerimeterTable table;
+    private long[][] corpus;
+	
+    // counts the nodes expanded; JMH reports the count per second
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+	public long nodes;
+	
+	@Setup(Level.Iteration)
+	public void reset() {
+	    nodes = 0;
+	}
+    }
+	
+    @Setup
+    public void setup() {
+	heuristic = Tables.solver();
+	corpus = Scrambles.corpus(length);
+	table = perimeter > 0 ? Tables.perimeter(perimeter) : null;
+    }
+	
+    @Benchmark
+    public int solve(Nodes nodes) {
+	int moves = 0;
+	for (long[] cube : corpus) {
+	    CubeTracer tracer = new CubeTracer(IDAStar.GODS_NUMBER);
+	    IDAStar search =
+		new IDAStar(heuristic, table, tracer, new AtomicBoolean());
+	    int costLimit = heuristic.estimate(cube[0], cube[1]);
+	    while (costLimit >= 0 && costLimit <= IDAStar.GODS_NUMBER)
+		costLimit = search.search(cube[0], cube[1], costLimit, 0,
+					  Moves.NONE);
+	    if (costLimit >= 0)
+		throw new IllegalStateException("No solution found");
+	    nodes.nodes += search.getNumNodes();
+	    moves += tracer.getLength();
+	}
+	return moves;
+    }
+}
@@ -0,0 +1,188 @@
+package heuristics;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import rotations.*;
+import structures.*;
+
+// Checks that a table generation stopped part way and resumed from where it
+// left off (see PatternCheckpoint, and the progress file of
+// ExternalPatternGenerator) saves the same table as one that ran straight
+// through: the CRC32 in the header of the resumed table's file must match
+// that of the uninterrupted one.
+//
+// Each engine (the serial and the parallel level-by-level engines, and the
+// external one) is run on an edge table with a space that fails once it has
+// made a quarter of the moves it takes to expand every state once.  That
+// stops the generation part way through a distance, as a crash would, after
+// the distances before it have been saved.  The same engine is then run again
+// on the same files.
+//
+// Usage: java -cp target/classes:target/test-classes heuristics.CheckpointCheck
+//            [edges] [directory]
+//
+// edges is the number of edges of EdgeHeuristic.FIRST_EDGES in the table
+// (5 by default), and directory is where the files are kept (a temporary
+// directory by default, which is deleted afterwards).
+public class CheckpointCheck {
+    // engines checked
+    private static final String[] ENGINES = {"serial", "parallel", "external"};
+	
+    // threads of the parallel engine, which doesn't need more than one core
+    // to interleave its tasks
+    private static final int THREADS = 4;
+	
+    // indices the external engine gathers at a time, small enough that each
+    // distance is written in many runs
+    private static final int BUFFER_SIZE = 1 << 16;
+	
+    // Thrown by a StoppingSpace once it has run out of moves
+    private static class Stop extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+    }
+	
+    // A space that makes the moves of another one until it has made the
+    // specified number, and then throws Stop
+    private static class StoppingSpace implements PatternSpace {
+	private PatternSpace space;
+	private long movesLeft;
+	
+	StoppingSpace(PatternSpace space, long moves) {
+	    this.space = space;
+	    this.movesLeft = moves;
+	}
+	
+	public int size() {
+	    return space.size();
+	}
+	
+	public int goal() {
+	    return space.goal();
+	}
+	
+	public int move(int index, int move) {
+	    // only checked approximately, since the parallel engine moves on
+	    // several threads at once
+	    if (--movesLeft < 0)
+		throw new Stop();
+	    return space.move(index, move);
+	}
+    }
+	
+    public static void main(String args[])
+	throws IOException, InterruptedException {
+	int numEdges = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+	boolean temporary = args.length < 2;
+	Path directory = temporary ? Files.createTempDirectory("checkpoint")
+	    : Paths.get(args[1]);
+	Files.createDirectories(directory);
+	int[] edges = Arrays.copyOf(EdgeHeuristic.FIRST_EDGES, numEdges);
+	long tableId = EdgeHeuristic.tableId(edges);
+	PatternSpace space = new EdgeSpace(edges);
+	Path reference = directory.resolve("reference.pdb");
+	HeuristicFile.save(PatternGenerator.byLevels(space), tableId, reference);
+	long expected = checksum(reference, tableId);
+	long stopAfter = (long)space.size() * Moves.NUM_MOVES / 4;
+	int failures = 0;
+	for (String engine : ENGINES)
+	    if (!check(engine, space, tableId, stopAfter, expected, directory))
+		failures++;
+	if (temporary)
+	    deleteAll(directory);
+	System.out.println(numEdges + " edges: " + failures + " of "
+			   + ENGINES.length + " resumed tables differ");
+	if (failures > 0)
+	    System.exit(1);
+    }
+	
+    // Generates the table with the engine, stopping it after the specified
+    // number of moves, and then generates it again from what the first run
+    // left behind.  Returns whether the second run resumed, and saved a
+    // table with the expected checksum
+    private static boolean check(String engine, PatternSpace space,
+				 long tableId, long stopAfter, long expected,
+				 Path directory)
+	throws IOException, InterruptedException {
+	System.out.println("Stopping the " + engine + " engine after "
+			   + stopAfter + " moves");
+	Path file = directory.resolve(engine + ".pdb");
+	Path work = directory.resolve(engine);
+	Files.createDirectories(work);
+	try {
+	    generate(engine, new StoppingSpace(space, stopAfter), tableId, file,
+		     work);
+	    System.out.println(engine + ": the generation wasn't stopped");
+	    return false;
+	} catch (Stop e) {
+	    // as planned
+	}
+	Path progress = engine.equals("external")
+	    ? work.resolve(ExternalPatternGenerator.PROGRESS_FILE)
+	    : work.resolve("table.checkpoint");
+	if (!Files.exists(progress)) {
+	    System.out.println(engine + ": nothing was saved to resume from");
+	    return false;
+	}
+	generate(engine, space, tableId, file, work);
+	long checksum = checksum(file, tableId);
+	System.out.println(engine + ": resumed CRC32 " + Long.toHexString(checksum)
+			   + ", uninterrupted " + Long.toHexString(expected));
+	return checksum == expected;
+    }
+	
+    // Generates the table of the space with the engine, saving it to the
+    // file and keeping the checkpoint or the search's files in work
+    private static void generate(String engine, PatternSpace space,
+				 long tableId, Path file, Path work)
+	throws IOException, InterruptedException {
+	if (engine.equals("external")) {
+	    ExternalPatternGenerator.generate(space, tableId, file, work,
+					      BUFFER_SIZE);
+	    return;
+	}
+	PatternCheckpoint checkpoint =
+	    new PatternCheckpoint(work.resolve("table.checkpoint"), tableId);
+	MyNibbleTable table;
+	if (engine.equals("parallel")) {
+	    ForkJoinPool pool = new ForkJoinPool(THREADS);
+	    try {
+		table = PatternGenerator.byLevels(space, pool, checkpoint);
+	    } finally {
+		// the tasks still running when one stops fail soon after
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.MINUTES);
+	    }
+	} else
+	    table = PatternGenerator.byLevels(space, checkpoint);
+	HeuristicFile.save(table, tableId, file);
+	checkpoint.delete();
+    }
+	
+    // returns the payload checksum in the header of the table's file
+    private static long checksum(Path file, long tableId) throws IOException {
+	try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+	    return HeuristicFile.readHeader(channel, file, tableId, true, 4, false)
+		.getLong(24);
+	}
+    }
+	
+    // deletes the directory and everything in it
+    private static void deleteAll(Path directory) throws IOException {
+	try (Stream<Path> paths = Files.walk(directory)) {
+	    Path[] all = paths.sorted(Comparator.reverseOrder())
+		.toArray(Path[]::new);
+	    for (Path path : all)
+		Files.delete(path);
+	}
+    }
+}
@@ -0,0 +1,88 @@
+package heuristics;
+
+import java.util.Random;
+
+import input.*;
+import rotations.*;
+
+// Checks the move tables of CoordinateMoves against the bit-level rotations
+// of CornerCubeMoves and EdgeCubeMoves, which remain the reference.
+//
+// A random sequence of moves is made on a solved cube twice: once by rotating
+// the packed corner and edge cubes, and once by looking each coordinate up in
+// the move tables.  After every move, every coordinate looked up must equal
+// the one read from the rotated cubes.  Given --full, the corner table is
+// then generated over a CornerSpace (which moves by the tables) and checked
+// against CornerHeuristic.DISTANCES.
+//
+// Usage: java -cp target/classes:target/test-classes heuristics.CoordinateCheck
+//            [--full] [moves] [seed]
+//
+// moves is the length of the sequence (1000000 by default).  The full corner
+// table takes about 15 seconds and 44 MB of heap
+public class CoordinateCheck {
+    public static void main(String args[]) {
+	boolean full = args.length > 0 && args[0].equals("--full");
+	int arg = full ? 1 : 0;
+	int numMoves = args.length > arg ? Integer.parseInt(args[arg]) : 1000000;
+	long seed = args.length > arg + 1 ? Long.parseLong(args[arg + 1])
+	    : System.nanoTime();
+	Random random = new Random(seed);
+	long cornerCube = CubeState.SOLVED.getCornerCube();
+	long edgeCube = CubeState.SOLVED.getEdgeCube();
+	int index = CornerIndexer.rank(cornerCube);
+	int permutation = CoordinateMoves.permutation(cornerCube);
+	int twist = CoordinateMoves.twist(cornerCube);
+	int flip = CoordinateMoves.flip(edgeCube);
+	int[] positions = new int[3];
+	for (int g = 0; g < positions.length; g++)
+	    positions[g] = CoordinateMoves.positions(g, edgeCube);
+	int failures = 0;
+	for (int i = 0; i < numMoves; i++) {
+	    int move = random.nextInt(Moves.NUM_MOVES);
+	    cornerCube = CornerCubeMoves.rotate(cornerCube, move);
+	    edgeCube = EdgeCubeMoves.rotate(edgeCube, move);
+	    index = CoordinateMoves.moveCorners(index, move);
+	    permutation = CoordinateMoves.movePermutation(permutation, move);
+	    twist = CoordinateMoves.moveTwist(twist, move);
+	    flip = CoordinateMoves.moveFlip(flip, move);
+	    boolean agree = index == CornerIndexer.rank(cornerCube)
+		&& permutation == CoordinateMoves.permutation(cornerCube)
+		&& twist == CoordinateMoves.twist(cornerCube)
+		&& flip == CoordinateMoves.flip(edgeCube);
+	    for (int g = 0; g < positions.length; g++) {
+		positions[g] =
+		    CoordinateMoves.movePositions(g, positions[g], move);
+		agree &= positions[g] == CoordinateMoves.positions(g, edgeCube);
+	    }
+	    if (!agree) {
+		if (failures++ < 10)
+		    System.out.println("Move " + i + " (" + Moves.toString(move)
+				       + "): the coordinates differ from the "
+				       + "rotated cube");
+		// start over from the rotated cube, so one bad entry isn't
+		// reported again on every later move
+		index = CornerIndexer.rank(cornerCube);
+		permutation = CoordinateMoves.permutation(cornerCube);
+		twist = CoordinateMoves.twist(cornerCube);
+		flip = CoordinateMoves.flip(edgeCube);
+		for (int g = 0; g < positions.length; g++)
+		    positions[g] = CoordinateMoves.positions(g, edgeCube);
+	    }
+	}
+	System.out.println(numMoves + " random moves (seed " + seed + "): "
+			   + failures + " differed");
+	if (full) {
+	    try {
+		CornerHeuristic.checkDistances(
+		    PatternGenerator.generate(new CornerSpace()));
+		System.out.println("Corner table: every distance matches");
+	    } catch (IllegalStateException e) {
+		System.out.println(e.getMessage());
+		failures++;
+	    }
+	}
+	if (failures > 0)
+	    System.exit(1);
+    }
+}
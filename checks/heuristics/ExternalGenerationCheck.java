@@ -0,0 +1,53 @@
+package heuristics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import structures.*;
+
+// Checks that ExternalPatternGenerator writes the same file, byte for byte,
+// as saving the table generated in memory by PatternGenerator.byLevels.
+// Tables of 4 and 5 edges are generated with a small buffer, so that each
+// distance is written in many runs that have to be merged.
+//
+// Usage: java -cp target/classes:target/test-classes
+//            heuristics.ExternalGenerationCheck [buffer-size]
+//
+// buffer-size is the number of indices gathered at a time (65536 by default)
+public class ExternalGenerationCheck {
+    // the numbers of edges of EdgeHeuristic.FIRST_EDGES in the tables checked
+    private static final int[] EDGES = {4, 5};
+	
+    public static void main(String args[]) throws IOException {
+	int bufferSize = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 16;
+	Path directory = Files.createTempDirectory("external");
+	Path work = directory.resolve("work");
+	Path expected = directory.resolve("levels.pdb");
+	Path file = directory.resolve("external.pdb");
+	int failures = 0;
+	for (int numEdges : EDGES) {
+	    int[] edges = Arrays.copyOf(EdgeHeuristic.FIRST_EDGES, numEdges);
+	    long tableId = EdgeHeuristic.tableId(edges);
+	    PatternSpace space = new EdgeSpace(edges);
+	    MyNibbleTable table = PatternGenerator.byLevels(space);
+	    HeuristicFile.save(table, tableId, expected);
+	    ExternalPatternGenerator.generate(space, tableId, file, work,
+					      bufferSize);
+	    boolean same = Arrays.equals(Files.readAllBytes(expected),
+					 Files.readAllBytes(file));
+	    System.out.println(numEdges + " edges: the files are "
+			       + (same ? "the same" : "different"));
+	    if (!same)
+		failures++;
+	    Files.delete(expected);
+	    Files.delete(file);
+	}
+	// the generator leaves the work directory empty once it has finished
+	Files.delete(work);
+	Files.delete(directory);
+	if (failures > 0)
+	    System.exit(1);
+    }
+}
@@ -0,0 +1,58 @@
+package heuristics;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import structures.*;
+
+// Checks that the parallel level-by-level engine of PatternGenerator fills
+// the same table as the serial one, whatever the number of threads: an edge
+// table is generated serially and then on pools of 1, 2 and 4 threads, and
+// every entry of each parallel table must equal that of the serial one.
+//
+// Usage: java -cp target/classes:target/test-classes
+//            heuristics.ParallelGenerationCheck [edges]
+//
+// edges is the number of edges of EdgeHeuristic.FIRST_EDGES in the table (5
+// by default)
+public class ParallelGenerationCheck {
+    // the pool sizes checked
+    private static final int[] THREADS = {1, 2, 4};
+	
+    public static void main(String args[]) {
+	int numEdges = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+	PatternSpace space =
+	    new EdgeSpace(Arrays.copyOf(EdgeHeuristic.FIRST_EDGES, numEdges));
+	MyNibbleTable expected = PatternGenerator.byLevels(space);
+	int failures = 0;
+	for (int threads : THREADS) {
+	    ForkJoinPool pool = new ForkJoinPool(threads);
+	    MyNibbleTable table = PatternGenerator.byLevels(space, pool);
+	    pool.shutdown();
+	    int first = firstDifference(expected, table);
+	    if (first < 0)
+		System.out.println(threads + " threads: the same table");
+	    else {
+		System.out.println(threads + " threads: entry " + first + " is "
+				   + table.get(first) + ", not "
+				   + expected.get(first));
+		failures++;
+	    }
+	}
+	System.out.println(numEdges + " edges: " + failures + " of "
+			   + THREADS.length + " parallel tables differ");
+	if (failures > 0)
+	    System.exit(1);
+    }
+	
+    // returns the index of the first entry the tables differ in, or -1 if
+    // they are the same
+    private static int firstDifference(MyNibbleTable a, MyNibbleTable b) {
+	if (a.getCapacity() != b.getCapacity())
+	    return 0;
+	for (int i = 0; i < a.getCapacity(); i++)
+	    if (a.get(i) != b.get(i))
+		return i;
+	return -1;
+    }
+}
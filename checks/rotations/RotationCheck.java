@@ -0,0 +1,76 @@
+package rotations;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Checks that the rotation methods give the same results when they are
+// called from many threads at once as they do on a single thread.
+//
+// Each thread applies long runs of random moves (all 18 of them) to the
+// solved corner and edge cubes, and compares every intermediate state with
+// the states recorded for the same moves on a single thread beforehand.  The
+// recorded states take 17 bytes per move, so the default of two threads per
+// core and 100000 moves each stays within a few megabytes per core.
+//
+// Usage: java -cp target/classes:target/test-classes rotations.RotationCheck
+//            [threads] [moves-per-thread]
+public class RotationCheck {
+    public static void main(String args[]) throws InterruptedException {
+	int threads = args.length > 0 ? Integer.parseInt(args[0]) :
+	    2 * Runtime.getRuntime().availableProcessors();
+	final int length = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+	// the single-threaded reference runs, one per thread
+	final byte[][] moves = new byte[threads][length];
+	final long[][] corners = new long[threads][length];
+	final long[][] edges = new long[threads][length];
+	for (int t = 0; t < threads; t++) {
+	    Random random = new Random(t);
+	    long corner = CornerCubeMoves.GOAL;
+	    long edge = EdgeCubeMoves.GOAL;
+	    for (int i = 0; i < length; i++) {
+		moves[t][i] = (byte)random.nextInt(Moves.NUM_MOVES);
+		corner = CornerCubeMoves.rotate(corner, moves[t][i]);
+		edge = EdgeCubeMoves.rotate(edge, moves[t][i]);
+		corners[t][i] = corner;
+		edges[t][i] = edge;
+	    }
+	}
+	// now replay them all at once, starting together
+	final CountDownLatch start = new CountDownLatch(1);
+	final AtomicInteger mismatches = new AtomicInteger();
+	Thread[] workers = new Thread[threads];
+	for (int t = 0; t < threads; t++) {
+	    final int run = t;
+	    workers[t] = new Thread() {
+		    public void run() {
+			try {
+			    start.await();
+			} catch (InterruptedException e) {
+			    return;
+			}
+			long corner = CornerCubeMoves.GOAL;
+			long edge = EdgeCubeMoves.GOAL;
+			for (int i = 0; i < length; i++) {
+			    corner = CornerCubeMoves.rotate(corner, moves[run][i]);
+			    edge = EdgeCubeMoves.rotate(edge, moves[run][i]);
+			    if (corner != corners[run][i] || edge != edges[run][i]) {
+				mismatches.incrementAndGet();
+				// carry on from the expected state
+				corner = corners[run][i];
+				edge = edges[run][i];
+			    }
+			}
+		    }
+		};
+	    workers[t].start();
+	}
+	start.countDown();
+	for (Thread worker : workers)
+	    worker.join();
+	System.out.println(threads + " threads, " + length + " moves each: " +
+			   mismatches.get() + " mismatches");
+	if (mismatches.get() > 0)
+	    System.exit(1);
+    }
+}
@@ -1,6 +1,18 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import javax.management.JMException;
+
 import heuristics.*;
 import input.*;
+import rotations.*;
 import search.*;
+import server.*;
 import structures.*;
 
 // This is the main client class of the RubiksCubeSolver project.  It's 
@@ -9,34 +21,233 @@ import structures.*;
 // computing the heuristic function, passing the compact cube to the IDA*
 // search, utilizing static cube rotation methods, and printing the 
 // solution when found
+//
+// Usage: java Solver [--no-pruning] [--quiet] [--perimeter r]
+//                    [--bfs-dir directory] [--verify]
+//                    [--batch input --out results | --serve port [--queue n]]
+//                    [--max-nodes n] [--max-millis t] [--max-depth d]
+//                    [--threads n] [heuristic-directory]
+//
+// The heuristic tables (see heuristics.HeuristicLoader) are read from
+// heuristic-directory (the working directory by default).  If a table
+// doesn't exist yet, or can't be used, it is generated and written to the
+// directory for the next run.  --no-pruning makes the
+// search try all 18 moves at every node, rather than skipping redundant move
+// sequences, so the numbers of nodes expanded can be compared.  --quiet
+// leaves out the nodes expanded (and the time taken) by each iteration.
+// --perimeter sets the radius of the table of cubes near the goal that ends
+// each search early (see heuristics.PerimeterTable; 5 by default, 0 for
+// none), which is kept in the same directory.  --bfs-dir generates missing
+// edge tables with a breadth-first search kept on disk, in the specified
+// directory (see heuristics.ExternalPatternGenerator), rather than in memory.
+// --verify checks every table loaded against its checksum, rather than only
+// checking its header (see heuristics.HeuristicLoader.setVerify).
+//
+// --batch solves every cube in the input file instead of asking for cubes on
+// the console, and writes one JSON line per cube to the results file (see
+// search.BatchSolver).  The cubes are solved n at a time (by default, one per
+// core), each on its own thread.
+//
+// --serve answers requests to solve cubes over HTTP on the port instead (see
+// server.SolveServer), solving n at a time with up to --queue more waiting
+// (64 by default).  In both modes, the solver's counters (see
+// search.SolverStats) can be watched over JMX as rubiks:type=CubeSolver.
+//
+// In every mode, --max-nodes, --max-millis and --max-depth limit every solve
+// (see search.SolveLimits).  A cube entered on the console is searched on n
+// threads (see search.ParallelIDAStar), and one that runs out of its limits
+// is reported with the bound the search reached.
+//
+// An unknown option, an option without its value, a value that isn't a
+// number, or a second directory prints the usage instead.
 public class Solver {	
     public static void main(String args[]) {
 	System.out.print("This application finds the shortest solution");
 	System.out.println("for your Rubik's Cube.");
 	System.out.println("Please wait while data is being initialized.");
-	CornerHeuristic h = new CornerHeuristic();
-	MyHashMap heuristic = h.getHeuristic();
+	Path batchInput = null;
+	Path batchOutput = null;
+	int port = -1;
+	int queueLength = 64;
+	long maxNodes = Long.MAX_VALUE;
+	long maxMillis = Long.MAX_VALUE;
+	int maxDepth = IDAStar.GODS_NUMBER;
+	int threads = Runtime.getRuntime().availableProcessors();
+	int radius = PerimeterTable.DEFAULT_RADIUS;
+	boolean quiet = false;
+	boolean verify = false;
+	Path workDirectory = null;
+	Path directory = null;
+	// false once an argument can't be used: an unknown option, an option
+	// without its value, a value that isn't a number, or a second directory
+	boolean valid = true;
+	try {
+	    for (int arg = 0; arg < args.length && valid; arg++) {
+		boolean hasValue = arg + 1 < args.length;
+		if (args[arg].equals("--no-pruning"))
+		    IDAStar.setMovePruning(false);
+		else if (args[arg].equals("--quiet"))
+		    quiet = true;
+		else if (args[arg].equals("--verify"))
+		    verify = true;
+		else if (args[arg].equals("--perimeter") && hasValue)
+		    radius = Integer.parseInt(args[++arg]);
+		else if (args[arg].equals("--bfs-dir") && hasValue)
+		    workDirectory = Paths.get(args[++arg]);
+		else if (args[arg].equals("--batch") && hasValue)
+		    batchInput = Paths.get(args[++arg]);
+		else if (args[arg].equals("--out") && hasValue)
+		    batchOutput = Paths.get(args[++arg]);
+		else if (args[arg].equals("--serve") && hasValue)
+		    port = Integer.parseInt(args[++arg]);
+		else if (args[arg].equals("--queue") && hasValue)
+		    queueLength = Integer.parseInt(args[++arg]);
+		else if (args[arg].equals("--max-nodes") && hasValue)
+		    maxNodes = Long.parseLong(args[++arg]);
+		else if (args[arg].equals("--max-millis") && hasValue)
+		    maxMillis = Long.parseLong(args[++arg]);
+		else if (args[arg].equals("--max-depth") && hasValue)
+		    maxDepth = Integer.parseInt(args[++arg]);
+		else if (args[arg].equals("--threads") && hasValue)
+		    threads = Integer.parseInt(args[++arg]);
+		else if (args[arg].startsWith("--") || directory != null)
+		    valid = false;
+		else
+		    directory = Paths.get(args[arg]);
+	    }
+	} catch (NumberFormatException e) {
+	    valid = false;
+	}
+	if (!valid || (batchInput == null) != (batchOutput == null)
+	    || (batchInput != null && port >= 0) || threads < 1
+	    || queueLength < 1 || maxNodes < 1 || maxMillis < 1
+	    || maxDepth < 0 || radius < 0
+	    || radius > PerimeterTable.MAX_RADIUS) {
+	    System.out.println("Usage: java Solver [--no-pruning] [--quiet]"
+			       + " [--perimeter r] [--bfs-dir directory]"
+			       + " [--verify]"
+			       + " [--batch input --out results"
+			       + " | --serve port [--queue n]]"
+			       + " [--max-nodes n] [--max-millis t]"
+			       + " [--max-depth d] [--threads n]"
+			       + " [heuristic-directory]");
+	    return;
+	}
+	if (directory == null)
+	    directory = Paths.get(".");
+	if (workDirectory != null)
+	    HeuristicLoader.setWorkDirectory(workDirectory);
+	HeuristicLoader.setVerify(verify);
+	SolveLimits limits = new SolveLimits(maxNodes, maxMillis, maxDepth);
+	Heuristic heuristic = HeuristicLoader.load(directory);
+	PerimeterTable perimeter = radius > 0
+	    ? HeuristicLoader.loadPerimeter(
+		directory.resolve(HeuristicLoader.PERIMETER_FILE), radius)
+	    : null;
+	if (batchInput != null) {
+	    solveBatch(batchInput, batchOutput, heuristic, perimeter, limits,
+		       threads);
+	    return;
+	}
+	if (port >= 0) {
+	    serve(port, heuristic, perimeter, threads, queueLength, limits);
+	    return;
+	}
 	CubeEntry c = new CubeEntry();
-	CubeTracer tracer = new CubeTracer(IDAStar.GODS_NUMBER);
+	CubeSolver solver = new CubeSolver(heuristic);
+	solver.setPerimeter(perimeter);
+	if (!quiet)
+	    solver.setLog(System.out);
+	// search on every core, if there is more than one
+	if (threads > 1)
+	    solver.setSearchPool(new ForkJoinPool(threads));
 	do {
 	    do {
 		c.enterCubeState();
 		c.printCube();
 	    } while(!c.isCubeOK());
 	    c.createCompactCube();
-	    long cornerCube = c.getCornerCube();
-	    long edgeCube = c.getEdgeCube();
-	    boolean foundSolution =
-		IDAStar.findSolution(cornerCube, edgeCube, heuristic, tracer);
-	    if (foundSolution) {
+	    if (!c.isCubeSolvable()) {
+		System.out.println("The cube can't be solved.");
+		continue;
+	    }
+	    SolveResult result =
+		solver.solve(new CubeState(c.getCornerCube(), c.getEdgeCube()),
+			     limits);
+	    if (!quiet)
+		System.out.println("Total number of nodes expanded: "
+				   + result.getNumNodes());
+	    if (result.isSolved()) {
 		System.out.println("Solution:");
-		String[] solution = tracer.getSequence();
-		for (String move : solution)
-		    if (move != null)
-			System.out.println(move);
+		int[] moves = result.getMoves();
+		if (moves.length == 0)
+		    System.out.println("The cube is already solved!");
+		for (int move : moves)
+		    System.out.println(Moves.toString(move));
 	    } else
-		System.out.println("No solution found.");
-	    tracer.reset();
+		System.out.println(result.getError());
 	} while(c.solveAnotherCube());
+	solver.close();
+    }
+	
+    // Answers requests to solve cubes on the port until the program is
+    // stopped, stopping the searches at the perimeter table (if it isn't
+    // null)
+    private static void serve(int port, Heuristic heuristic,
+			      PerimeterTable perimeter, int threads,
+			      int queueLength, SolveLimits limits) {
+	try {
+	    CubeSolver solver = new CubeSolver(heuristic);
+	    solver.setPerimeter(perimeter);
+	    registerMBean(solver);
+	    final SolveServer server =
+		new SolveServer(solver, port, threads, queueLength, limits);
+	    // answer the solves under way (as cancelled) when stopped
+	    Runtime.getRuntime().addShutdownHook(new Thread() {
+		    public void run() {
+			server.stop(1);
+		    }
+		});
+	    server.start();
+	    System.out.println("Solving cubes on port " + server.getPort()
+			       + " with " + threads + " threads");
+	} catch (IOException e) {
+	    System.out.println("Unable to start the server: " + e.getMessage());
+	}
+    }
+	
+    // Solves the cubes in the input file within the limits, writing the
+    // results to the output file (with the searches stopping at the
+    // perimeter table, if it isn't null)
+    private static void solveBatch(Path input, Path output,
+				   Heuristic heuristic, PerimeterTable perimeter,
+				   SolveLimits limits, int threads) {
+	System.out.println("Solving the cubes in " + input + " on " + threads
+			   + " threads");
+	long start = System.nanoTime();
+	try (CubeSolver solver = new CubeSolver(heuristic);
+	     BufferedReader in =
+	     Files.newBufferedReader(input, StandardCharsets.UTF_8);
+	     BufferedWriter out =
+	     Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+	    solver.setPerimeter(perimeter);
+	    registerMBean(solver);
+	    int solved = BatchSolver.solve(in, out, solver, limits, threads);
+	    System.out.println("Solved " + solved + " cubes in "
+			       + (System.nanoTime() - start) / 1000000
+			       + " ms; results written to " + output);
+	} catch (IOException e) {
+	    System.out.println("Unable to solve the batch: " + e.getMessage());
+	}
+    }
+	
+    // Publishes the solver's counters over JMX, as rubiks:type=CubeSolver
+    private static void registerMBean(CubeSolver solver) {
+	try {
+	    solver.registerMBean("rubiks:type=CubeSolver");
+	} catch (JMException e) {
+	    System.out.println("Unable to register the solver with JMX: "
+			       + e.getMessage());
+	}
     }
 }
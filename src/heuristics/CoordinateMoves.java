@@ -0,0 +1,158 @@
+package heuristics;
+
+import rotations.*;
+
+// Move tables for the coordinates of the cube, so that a move becomes a table
+// lookup instead of the masking and shifting done in CornerCubeMoves and
+// EdgeCubeMoves.  The tables are generated from those classes, which remain
+// the reference for what a move does.
+//
+// The coordinates are:
+//
+//   corner permutation: index / NUM_TWISTS of the CornerIndexer index
+//   corner twist:       index % NUM_TWISTS of the CornerIndexer index
+//   edge flip:          the orientations of edge slots 0..10, read as a
+//                       binary number (slot 0 is the most significant bit).
+//                       The orientation of slot 11 is implied, because the
+//                       orientations of a legal edge cube add up to an even
+//                       number
+//   edge positions:     the slots of a group of four edge cubies, ranked as
+//                       in EdgeIndexer.  The three groups ORANGE_EDGES,
+//                       RED_EDGES and SLICE_EDGES together fix the edge
+//                       permutation
+//
+// Each coordinate changes with a move independently of the others, so a
+// table maps (coordinate, move) to the coordinate after the move.  The tables
+// are flat arrays indexed by coordinate * NUM_MOVES + move.
+public class CoordinateMoves {
+    // number of edge flip coordinates (2^11)
+    public static final int NUM_FLIPS = 2048;
+	
+    // number of ways to place four edge cubies in the 12 slots (12!/8!)
+    public static final int NUM_EDGE_POSITIONS = 11880;
+	
+    // the edge cubies of the orange face, the red face, and the slice between
+    // them
+    public static final int[] ORANGE_EDGES = {3, 5, 6, 9};
+    public static final int[] RED_EDGES = {0, 4, 7, 11};
+    public static final int[] SLICE_EDGES = {1, 2, 8, 10};
+	
+    // number of bits used by a single edge slot
+    private static final int numBits = 5;
+	
+    private static final int numMoves = Moves.NUM_MOVES;
+	
+    // the move tables
+    private static final char[] permutationMoves =
+	new char[CornerIndexer.NUM_PERMUTATIONS * numMoves];
+    private static final short[] twistMoves =
+	new short[CornerIndexer.NUM_TWISTS * numMoves];
+    private static final short[] flipMoves = new short[NUM_FLIPS * numMoves];
+    private static final char[][] positionMoves = new char[3][];
+	
+    // indexers for the three edge groups, in the order of positionMoves
+    private static final EdgeIndexer[] groups = {
+	new EdgeIndexer(ORANGE_EDGES), new EdgeIndexer(RED_EDGES),
+	new EdgeIndexer(SLICE_EDGES)};
+	
+    static {
+	int numTwists = CornerIndexer.NUM_TWISTS;
+	// the permutation is read from cubes with no twist, and the twist
+	// from cubes with the cubies in place
+	for (int p = 0; p < CornerIndexer.NUM_PERMUTATIONS; p++) {
+	    long cube = CornerIndexer.unrank(p * numTwists);
+	    for (int move = 0; move < numMoves; move++)
+		permutationMoves[p*numMoves + move] = (char)
+		    (CornerIndexer.rank(CornerCubeMoves.rotate(cube, move))
+		     / numTwists);
+	}
+	for (int t = 0; t < numTwists; t++) {
+	    long cube = CornerIndexer.unrank(t);
+	    for (int move = 0; move < numMoves; move++)
+		twistMoves[t*numMoves + move] = (short)
+		    (CornerIndexer.rank(CornerCubeMoves.rotate(cube, move))
+		     % numTwists);
+	}
+	for (int f = 0; f < NUM_FLIPS; f++) {
+	    long cube = flipCube(f);
+	    for (int move = 0; move < numMoves; move++)
+		flipMoves[f*numMoves + move] =
+		    (short)flip(EdgeCubeMoves.rotate(cube, move));
+	}
+	// the position part of an EdgeIndexer index is above its 4 flip bits
+	for (int g = 0; g < groups.length; g++) {
+	    positionMoves[g] = new char[NUM_EDGE_POSITIONS * numMoves];
+	    for (int p = 0; p < NUM_EDGE_POSITIONS; p++) {
+		long cube = groups[g].unrank(p << 4);
+		for (int move = 0; move < numMoves; move++)
+		    positionMoves[g][p*numMoves + move] = (char)
+			(groups[g].rank(EdgeCubeMoves.rotate(cube, move)) >>> 4);
+	    }
+	}
+    }
+	
+    // returns the corner permutation coordinate of the specified corner cube
+    public static int permutation(long cornerCube) {
+	return CornerIndexer.rank(cornerCube) / CornerIndexer.NUM_TWISTS;
+    }
+	
+    // returns the corner twist coordinate of the specified corner cube
+    public static int twist(long cornerCube) {
+	return CornerIndexer.rank(cornerCube) % CornerIndexer.NUM_TWISTS;
+    }
+	
+    // returns the edge flip coordinate of the specified edge cube
+    public static int flip(long edgeCube) {
+	int flip = 0;
+	for (int i = 0; i < 11; i++)
+	    flip = (flip << 1) | (int)(edgeCube >>> numBits*i) & 1;
+	return flip;
+    }
+	
+    // Returns the edge positions coordinate of the specified group (0 for
+    // ORANGE_EDGES, 1 for RED_EDGES, 2 for SLICE_EDGES) in the edge cube
+    public static int positions(int group, long edgeCube) {
+	return groups[group].rank(edgeCube) >>> 4;
+    }
+	
+    // returns the corner permutation coordinate after the specified move
+    public static int movePermutation(int permutation, int move) {
+	return permutationMoves[permutation*numMoves + move];
+    }
+	
+    // returns the corner twist coordinate after the specified move
+    public static int moveTwist(int twist, int move) {
+	return twistMoves[twist*numMoves + move];
+    }
+	
+    // returns the edge flip coordinate after the specified move
+    public static int moveFlip(int flip, int move) {
+	return flipMoves[flip*numMoves + move];
+    }
+	
+    // returns the edge positions coordinate of the group after the move
+    public static int movePositions(int group, int positions, int move) {
+	return positionMoves[group][positions*numMoves + move];
+    }
+	
+    // Returns the CornerIndexer index of the corner cube the specified move
+    // leads to, from the corner cube with the specified index
+    public static int moveCorners(int index, int move) {
+	int numTwists = CornerIndexer.NUM_TWISTS;
+	return permutationMoves[(index / numTwists)*numMoves + move] * numTwists
+	    + twistMoves[(index % numTwists)*numMoves + move];
+    }
+	
+    // returns the solved edge cube with the orientations of the specified
+    // flip coordinate
+    public static long flipCube(int flip) {
+	long cube = EdgeCubeMoves.GOAL;
+	int parity = 0;
+	for (int i = 10; i >= 0; i--) {
+	    cube |= (long)(flip & 1) << numBits*i;
+	    parity ^= flip & 1;
+	    flip >>>= 1;
+	}
+	return cube | (long)parity << numBits*11;
+    }
+}
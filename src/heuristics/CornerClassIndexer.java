@@ -0,0 +1,101 @@
+package heuristics;
+
+import rotations.*;
+
+// Maps every corner cube onto an index in [0, NUM_STATES) of a table reduced
+// by the symmetries in rotations.Symmetries, so that the corner heuristic
+// needs about a fifteenth of the memory of a table indexed by CornerIndexer.
+//
+// The corner permutations fall into NUM_CLASSES classes of permutations that
+// are conjugates of each other.  The smallest permutation (by CornerIndexer)
+// of each class represents it.  A corner cube is conjugated by a symmetry
+// which takes its permutation to the representative, and the result is
+// indexed by
+//
+//   index = class * NUM_TWISTS + twist
+//
+// where twist is the twist of the conjugated cube.  The conjugated cube is
+// exactly as far from solved as the original, so a table only has to hold
+// the distances of the representatives.  The twist is conjugated along with
+// the permutation, since the symmetries keep the orange/red axis in place
+// and so never mix the two.
+public class CornerClassIndexer {
+    // number of classes of corner permutations
+    public static final int NUM_CLASSES;
+	
+    // number of entries of a table indexed by rank
+    public static final int NUM_STATES;
+	
+    private static final int numTwists = CornerIndexer.NUM_TWISTS;
+    private static final int numSymmetries = Symmetries.NUM_SYMMETRIES;
+	
+    // the class of each permutation, and the symmetry that conjugates it to
+    // the representative of its class
+    private static final char[] classes =
+	new char[CornerIndexer.NUM_PERMUTATIONS];
+    private static final byte[] symmetries =
+	new byte[CornerIndexer.NUM_PERMUTATIONS];
+	
+    // the representative permutation of each class
+    private static final char[] representatives;
+	
+    // twists[t * NUM_SYMMETRIES + s] is twist t conjugated by symmetry s
+    private static final short[] twists = new short[numTwists * numSymmetries];
+	
+    static {
+	int numPermutations = CornerIndexer.NUM_PERMUTATIONS;
+	int[] representativeOf = new int[numPermutations];
+	char[] classOf = new char[numPermutations];
+	int count = 0;
+	for (int p = 0; p < numPermutations; p++) {
+	    long cube = CornerIndexer.unrank(p * numTwists);
+	    int smallest = p;
+	    int symmetry = 0;
+	    for (int s = 1; s < numSymmetries; s++) {
+		int conjugate = CornerIndexer.rank(Symmetries.conjugateCorners(cube, s))
+		    / numTwists;
+		if (conjugate < smallest) {
+		    smallest = conjugate;
+		    symmetry = s;
+		}
+	    }
+	    representativeOf[p] = smallest;
+	    symmetries[p] = (byte)symmetry;
+	    // the representative is the first permutation of its class
+	    if (smallest == p)
+		classOf[p] = (char)count++;
+	}
+	NUM_CLASSES = count;
+	NUM_STATES = count * numTwists;
+	representatives = new char[count];
+	for (int p = 0; p < numPermutations; p++) {
+	    classes[p] = classOf[representativeOf[p]];
+	    representatives[classes[p]] = (char)representativeOf[p];
+	}
+	// cubes with no permutation keep none under conjugation, so the twist
+	// can be read straight off the conjugated index
+	for (int t = 0; t < numTwists; t++) {
+	    long cube = CornerIndexer.unrank(t);
+	    for (int s = 0; s < numSymmetries; s++)
+		twists[t*numSymmetries + s] = (short)
+		    CornerIndexer.rank(Symmetries.conjugateCorners(cube, s));
+	}
+    }
+	
+    // Returns the index of the specified corner cube
+    public static int rank(long cube) {
+	int index = CornerIndexer.rank(cube);
+	int permutation = index / numTwists;
+	int twist = index % numTwists;
+	return classes[permutation] * numTwists
+	    + twists[twist*numSymmetries + symmetries[permutation]];
+    }
+	
+    // Returns the CornerIndexer index of the corner cube that the specified
+    // index stands for: the cube with the representative permutation of the
+    // class, and the twist of the index
+    public static int representative(int index) {
+	return representatives[index / numTwists] * numTwists
+	    + index % numTwists;
+    }
+}
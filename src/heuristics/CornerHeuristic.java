@@ -1,85 +1,87 @@
 package heuristics;
 
-import rotations.*;
 import structures.*;
 
 // Computes the corner cube heuristic for use in the A* search of the state
-// space of the full 3x3x3 Rubik's Cube
-public class CornerHeuristic {
-    // Performs a breadth-first enumeration of the entire state space of the
-    // corner cube, mapping each state to the number of moves required to first
-    // reach it
-    //
-    // Mask to remove the cube state encoding when mapping move lengths
-    private final long moveCounterMask = 0b11111111L << 56;
-    // Mask to remove the counter
-    private final long cubeStateMask =
-	0b1111111111111111111111111111111111111111L;
+// space of the full 3x3x3 Rubik's Cube.  The estimate for a cube is the
+// number of moves needed to solve its corners alone
+public class CornerHeuristic implements Heuristic {
+    // ID saved along with the table, so that another table can't be loaded in
+    // its place: a hex 'C' followed by the IDs of the tracked cubies (all of
+    // the corners), as in EdgeHeuristic, with the number of symmetries the
+    // table is reduced by (16) in front
+    public static final long TABLE_ID = 0x10C01234567L;
 	
-    // String array of rotation types
-    private String[] rotationTypes = {"orange90CW", "orange90CCW", "orange180",
-				      "green90CW", "green90CCW",
-				      "green180", "red90CW", "red90CCW", "red180",
-				      "blue90CW", "blue90CCW", "blue180", 
-				      "white90CW", "white90CCW", "white180",
-				      "yellow90CW", "yellow90CCW", "yellow180"};
+    // ID of the table of every corner cube state, before it is reduced by
+    // the symmetries (used for its checkpoints)
+    public static final long FULL_TABLE_ID = 0xC01234567L;
 	
-    // goal (solved) state of the corner cube, described in accordance to the
-    // details listed in CornerCubeMoves.java
-    private long goal = 0b1110011000101001000001100010000010000000L;
+    // DISTANCES[n] is the number of corner cube states n moves from the goal.
+    // A generated table must match these counts exactly
+    public static final int[] DISTANCES =
+    {1, 18, 243, 2874, 28000, 205416, 1168516, 5402628, 20776176, 45391616,
+     15139616, 64736};
 	
-    // counter to see how many states were discovered
-    private int states = 0;
-
-    // Queue for the breadth-first search
-    private MyQueue q = new MyArrayQueue(89000000);
-	
-    // Custom hash table, which associates the corner cube with the number of
-    // moves it was first reached in
-    private MyHashMap h = new MyHashMap(180000000);
+    // Table indexed by the symmetry-reduced rank of the corner cube (see
+    // CornerClassIndexer), which holds the number of moves it was first
+    // reached in
+    private MyNibbleTable h;
 	
-    // Another hash table, which does its best to avoid collisions and works as
-    // a lightweight Set ADT, to denote which corner cube states have been
-    // discovered.
-    // Try some primes, such as: 1073676287, 776531419
-    private MyDiscoveryTable d = new MyDiscoveryTable(500000000);
-	
-    // Constructor enumerates the corner cube states and fills the hash table
+    // Constructor enumerates the corner cube states and fills the table.
+    // The enumeration (see PatternGenerator) covers every state, and the
+    // distances of the representatives are then copied into the smaller
+    // table
     public CornerHeuristic() {
+	this((PatternCheckpoint)null);
+    }
+	
+    // Generates the table as CornerHeuristic() does, saving the enumeration
+    // to the specified checkpoint after each distance (and resuming from it),
+    // unless it is null
+    public CornerHeuristic(PatternCheckpoint checkpoint) {
 	System.out.println("Generating corner cube heuristic...");
-	// queue the goal state
-	q.add(goal);
-	// mark it as discovered
-	d.discover(goal);
-	// Now, fire up BFS
-	while (!q.isEmpty()) {
-	    // remove a cube state from the queue
-	    long cube = q.remove();
-	    // determine all its neighbors; queue if undiscovered
-	    for (String type : rotationTypes) {
-		// perform the rotation, using the method that tracks move
-		// numbers
-		long rotatedCube =
-		    CornerCubeMoves.rotateWithCounter(cube, type);
-		// queue if the rotated cube hasn't been queued already
-		if (!d.isDiscovered((rotatedCube & cubeStateMask))) {
-		    q.add(rotatedCube); 
-		    // note that you've queued the cube:
-		    d.discover((rotatedCube & cubeStateMask));
-		}
-	    }
-	    // map the corner cube state to the move counter (taking care to
-	    // mask off the appropriate values)
-	    h.put((cube & cubeStateMask),
-		  (byte)((cube & moveCounterMask) >> 56));
-	    states++;
-	}
-	System.out.println("States discovered: " + states);
-	// System.out.println("Collisions detected: " + h.getCollisions());
+	MyNibbleTable full =
+	    PatternGenerator.generate(new CornerSpace(), checkpoint);
+	checkDistances(full);
+	h = new MyNibbleTable(CornerClassIndexer.NUM_STATES);
+	for (int i = 0; i < CornerClassIndexer.NUM_STATES; i++)
+	    h.put(i, full.get(CornerClassIndexer.representative(i)));
     }
 	
-    // Returns the hashtable which stores the heuristic
-    public MyHashMap getHeuristic() {
+    // Uses a previously generated table (e.g. one read by HeuristicFile)
+    public CornerHeuristic(MyNibbleTable table) {
+	if (table.getCapacity() != CornerClassIndexer.NUM_STATES)
+	    throw new IllegalArgumentException("Not a corner cube table");
+	h = table;
+    }
+	
+    // returns the number of moves needed to solve the corner cube
+    public int estimate(long cornerCube, long edgeCube) {
+	return h.get(CornerClassIndexer.rank(cornerCube));
+    }
+	
+    // Returns the table which stores the heuristic
+    public MyNibbleTable getTable() {
 	return h;
     }
+	
+    // Checks that the specified table, indexed by CornerIndexer (as generated
+    // over a CornerSpace), holds every corner cube state, with the numbers of
+    // states at each distance given by DISTANCES.  Throws an
+    // IllegalStateException if it doesn't
+    public static void checkDistances(MyNibbleTable table) {
+	if (table.getCapacity() != CornerIndexer.NUM_STATES)
+	    throw new IllegalStateException("Not a corner cube table");
+	int[] counts = new int[16];
+	for (int i = 0; i < CornerIndexer.NUM_STATES; i++)
+	    counts[table.get(i)]++;
+	for (int moves = 0; moves < counts.length; moves++) {
+	    int expected = moves < DISTANCES.length ? DISTANCES[moves] : 0;
+	    if (counts[moves] != expected)
+		throw new IllegalStateException("Corner table has " + counts[moves]
+						+ " states " + moves
+						+ " moves from the goal, not "
+						+ expected);
+	}
+    }
 }
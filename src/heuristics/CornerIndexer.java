@@ -0,0 +1,87 @@
+package heuristics;
+
+// Maps every corner cube state onto a unique index in [0, NUM_STATES), and
+// back again, so the heuristic can be stored in a flat array instead of a
+// hash table.
+//
+// The corner cube is encoded as described in rotations.CornerCubeMoves: eight
+// 5-bit slots, each holding a 3-bit cubie ID above a 2-bit orientation.  The
+// index is built from two parts:
+//
+//   permutation: the Lehmer code of the cubie IDs in slots 0..7, which ranks
+//                the 8! arrangements of the cubies
+//   twist:       the orientations of slots 0..6 read as a base 3 number.  The
+//                orientation of slot 7 is implied, because the orientations of
+//                a legal corner cube always add up to a multiple of 3
+//
+// and index = permutation * NUM_TWISTS + twist.  The solved corner cube has
+// index 0.
+public class CornerIndexer {
+    // number of arrangements of the 8 corner cubies (8!)
+    public static final int NUM_PERMUTATIONS = 40320;
+	
+    // number of orientations of the corner cubies (3^7)
+    public static final int NUM_TWISTS = 2187;
+	
+    // number of corner cube states
+    public static final int NUM_STATES = NUM_PERMUTATIONS * NUM_TWISTS;
+	
+    // number of bits used by a single corner slot
+    private static final int numBits = 5;
+	
+    // Returns the index of the specified corner cube.  Any bits above the 40
+    // bit corner encoding (e.g. a move counter) are ignored
+    public static int rank(long cube) {
+	int permutation = 0;
+	int twist = 0;
+	int used = 0; // bit i is set once cubie i has been seen
+	for (int i = 0; i < 8; i++) {
+	    int slot = (int)(cube >>> numBits*i) & 0b11111;
+	    int cubie = slot >>> 2;
+	    // the number of cubies after this slot that have a smaller ID
+	    int smaller = cubie - Integer.bitCount(used & ((1 << cubie) - 1));
+	    used |= 1 << cubie;
+	    permutation = permutation * (8 - i) + smaller;
+	    if (i < 7)
+		twist = twist * 3 + (slot & 0b11);
+	}
+	return permutation * NUM_TWISTS + twist;
+    }
+	
+    // Returns the corner cube with the specified index
+    public static long unrank(int index) {
+	int permutation = index / NUM_TWISTS;
+	int twist = index % NUM_TWISTS;
+	// recover the Lehmer code digits, last slot first
+	int[] digits = new int[8];
+	for (int i = 7; i >= 0; i--) {
+	    digits[i] = permutation % (8 - i);
+	    permutation /= 8 - i;
+	}
+	long cube = 0L;
+	int used = 0;
+	int twistSum = 0;
+	int divisor = NUM_TWISTS / 3;
+	for (int i = 0; i < 8; i++) {
+	    // the cubie is the (digits[i])th smallest cubie not yet placed
+	    int cubie = 0;
+	    for (int skip = digits[i]; ; cubie++) {
+		if ((used & (1 << cubie)) == 0) {
+		    if (skip == 0)
+			break;
+		    skip--;
+		}
+	    }
+	    used |= 1 << cubie;
+	    int orientation;
+	    if (i < 7) {
+		orientation = (twist / divisor) % 3;
+		divisor /= 3;
+		twistSum += orientation;
+	    } else
+		orientation = (3 - twistSum % 3) % 3;
+	    cube |= (long)((cubie << 2) | orientation) << numBits*i;
+	}
+	return cube;
+    }
+}
@@ -0,0 +1,18 @@
+package heuristics;
+
+// The states of the corner cube, numbered by CornerIndexer and moved with the
+// tables in CoordinateMoves
+public class CornerSpace implements PatternSpace {
+    public int size() {
+	return CornerIndexer.NUM_STATES;
+    }
+	
+    // the solved corner cube has index 0
+    public int goal() {
+	return 0;
+    }
+	
+    public int move(int index, int move) {
+	return CoordinateMoves.moveCorners(index, move);
+    }
+}
@@ -0,0 +1,67 @@
+package heuristics;
+
+import structures.*;
+
+// Computes an edge cube heuristic for use in the A* search of the state space
+// of the full 3x3x3 Rubik's Cube.  The estimate for a cube is the number of
+// moves needed to solve a subset of its edge cubies (see EdgeIndexer).  Two
+// heuristics over disjoint subsets, together with the corner heuristic, give
+// a much better bound than the corners alone when combined by MaxHeuristic
+public class EdgeHeuristic implements Heuristic {
+    // The two subsets of edge cubies used by the solver: all four edges of
+    // the orange face plus the two on the blue side between the orange and
+    // red faces, and the six edges that remain
+    public static final int[] FIRST_EDGES = {1, 3, 5, 6, 8, 9};
+    public static final int[] SECOND_EDGES = {0, 2, 4, 7, 10, 11};
+	
+    // maps the tracked cubies to table indices
+    private EdgeIndexer indexer;
+	
+    // Table indexed by the rank of the tracked edge cubies, which holds the
+    // number of moves they were first reached in
+    private MyNibbleTable h;
+	
+    // Constructor enumerates the states of the specified edge cubies and
+    // fills the table (see PatternGenerator)
+    public EdgeHeuristic(int[] edges) {
+	this(edges, (PatternCheckpoint)null);
+    }
+	
+    // Generates the table as EdgeHeuristic(edges) does, saving it to the
+    // specified checkpoint after each distance (and resuming from it), unless
+    // it is null
+    public EdgeHeuristic(int[] edges, PatternCheckpoint checkpoint) {
+	indexer = new EdgeIndexer(edges);
+	System.out.println("Generating edge cube heuristic...");
+	h = PatternGenerator.generate(new EdgeSpace(edges), checkpoint);
+    }
+	
+    // Uses a previously generated table (e.g. one read by HeuristicFile)
+    public EdgeHeuristic(int[] edges, MyNibbleTable table) {
+	indexer = new EdgeIndexer(edges);
+	if (table.getCapacity() != indexer.size())
+	    throw new IllegalArgumentException("Table doesn't match the edge subset");
+	h = table;
+    }
+	
+    // returns the number of moves needed to solve the tracked edge cubies
+    public int estimate(long cornerCube, long edgeCube) {
+	return h.get(indexer.rank(edgeCube));
+    }
+	
+    // Returns the table which stores the heuristic
+    public MyNibbleTable getTable() {
+	return h;
+    }
+	
+    // Returns the ID of the table for the specified edge cubies, which is
+    // saved along with it so that a table can't be loaded for the wrong
+    // subset.  The ID is a hex 'E' followed by the IDs of the tracked cubies,
+    // one hex digit each, in the order they are tracked
+    public static long tableId(int[] edges) {
+	long id = 0xEL;
+	for (int edge : edges)
+	    id = (id << 4) | edge;
+	return id;
+    }
+}
@@ -0,0 +1,120 @@
+package heuristics;
+
+// Maps the states of a subset of the edge cubies onto unique indices in
+// [0, size()), and back again, so that an edge heuristic can be stored in a
+// flat table.
+//
+// The edge cube is encoded as described in rotations.EdgeCubeMoves: twelve
+// 5-bit slots, each holding a 4-bit cubie ID above a 1-bit orientation.  Only
+// the cubies in the subset are tracked; the index is built from
+//
+//   positions: the slots of the tracked cubies (in the order the cubies were
+//              given), ranked as a partial permutation of the 12 slots
+//   flips:     the orientations of the tracked cubies, read as a binary number
+//
+// and index = positions * 2^k + flips, for a subset of k cubies.
+public class EdgeIndexer {
+    // ID written to the slots of untracked cubies by unrank.  It isn't the ID
+    // of any real cubie, so rank skips over it
+    public static final int UNTRACKED = 0b1111;
+	
+    // number of bits used by a single edge slot
+    private static final int numBits = 5;
+	
+    // the tracked cubies
+    private int[] edges;
+	
+    // the position of each cubie ID in edges, or -1 if it isn't tracked
+    private int[] subsetIndex = new int[16];
+	
+    // number of ways to place the tracked cubies in the 12 slots
+    private int numPositions;
+	
+    // Creates an indexer for the specified edge cubies
+    public EdgeIndexer(int[] edges) {
+	// (with more than 7 cubies, the indices no longer fit in an int)
+	if (edges.length < 1 || edges.length > 7)
+	    throw new IllegalArgumentException("An edge subset must have 1 to 7 cubies");
+	this.edges = edges.clone();
+	for (int i = 0; i < subsetIndex.length; i++)
+	    subsetIndex[i] = -1;
+	numPositions = 1;
+	for (int i = 0; i < edges.length; i++) {
+	    if (edges[i] < 0 || edges[i] > 11 || subsetIndex[edges[i]] != -1)
+		throw new IllegalArgumentException("Invalid edge subset");
+	    subsetIndex[edges[i]] = i;
+	    numPositions *= 12 - i;
+	}
+    }
+	
+    // returns the number of states of the tracked cubies
+    public int size() {
+	return numPositions << edges.length;
+    }
+	
+    // returns a copy of the tracked cubies
+    public int[] getEdges() {
+	return edges.clone();
+    }
+	
+    // Returns the index of the tracked cubies in the specified edge cube
+    public int rank(long cube) {
+	int k = edges.length;
+	// find the slot and orientation of every tracked cubie.  The slot of
+	// the jth cubie is kept in bits 4j..4j+3 of slots, since this runs
+	// several times per node of the search and shouldn't allocate
+	int slots = 0;
+	int flips = 0;
+	for (int i = 0; i < 12; i++) {
+	    int slot = (int)(cube >>> numBits*i) & 0b11111;
+	    int j = subsetIndex[slot >>> 1];
+	    if (j >= 0) {
+		slots |= i << 4*j;
+		flips |= (slot & 1) << (k - 1 - j);
+	    }
+	}
+	// rank the slots as a partial permutation
+	int positions = 0;
+	int used = 0; // bit i is set once slot i has been taken
+	for (int j = 0; j < k; j++) {
+	    int slot = (slots >>> 4*j) & 0xF;
+	    int smaller = slot - Integer.bitCount(used & ((1 << slot) - 1));
+	    used |= 1 << slot;
+	    positions = positions * (12 - j) + smaller;
+	}
+	return (positions << k) | flips;
+    }
+	
+    // Returns an edge cube with the tracked cubies in the state with the
+    // specified index.  All other slots hold the UNTRACKED ID
+    public long unrank(int index) {
+	int k = edges.length;
+	int flips = index & ((1 << k) - 1);
+	int positions = index >>> k;
+	// recover the partial permutation digits, last cubie first
+	int[] digits = new int[k];
+	for (int j = k - 1; j >= 0; j--) {
+	    digits[j] = positions % (12 - j);
+	    positions /= 12 - j;
+	}
+	long cube = 0L;
+	for (int i = 0; i < 12; i++)
+	    cube |= (long)(UNTRACKED << 1) << numBits*i;
+	int used = 0;
+	for (int j = 0; j < k; j++) {
+	    // the slot is the (digits[j])th smallest slot not yet taken
+	    int slot = 0;
+	    for (int skip = digits[j]; ; slot++) {
+		if ((used & (1 << slot)) == 0) {
+		    if (skip == 0)
+			break;
+		    skip--;
+		}
+	    }
+	    used |= 1 << slot;
+	    long value = (edges[j] << 1) | ((flips >>> (k - 1 - j)) & 1);
+	    cube = (cube & ~(0b11111L << numBits*slot)) | (value << numBits*slot);
+	}
+	return cube;
+    }
+}
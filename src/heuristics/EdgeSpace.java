@@ -0,0 +1,26 @@
+package heuristics;
+
+import rotations.*;
+
+// The states of a subset of the edge cubies, numbered by EdgeIndexer.  A move
+// unranks the state to an edge cube, rotates it, and ranks the result
+public class EdgeSpace implements PatternSpace {
+    private EdgeIndexer indexer;
+	
+    // Creates the space of the specified edge cubies
+    public EdgeSpace(int[] edges) {
+	indexer = new EdgeIndexer(edges);
+    }
+	
+    public int size() {
+	return indexer.size();
+    }
+	
+    public int goal() {
+	return indexer.rank(EdgeCubeMoves.GOAL);
+    }
+	
+    public int move(int index, int move) {
+	return indexer.rank(EdgeCubeMoves.rotate(indexer.unrank(index), move));
+    }
+}
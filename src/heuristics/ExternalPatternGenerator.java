@@ -0,0 +1,466 @@
+package heuristics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import rotations.*;
+import structures.*;
+
+// Fills the table of distances of the states of a PatternSpace, as
+// PatternGenerator does, but keeps the breadth-first search on disk, so the
+// heap it needs doesn't grow with the space.  Duplicates are detected late:
+// each distance d is a file of the indices of its states, in order, in a work
+// directory, and the file of distance d + 1 is made in two steps
+//
+//   expand: the states at distance d are read in order, and the indices of
+//           their neighbors gathered in a buffer.  Whenever the buffer fills,
+//           it is sorted, stripped of duplicates and written out as a run
+//   merge:  the runs are merged (at most MAX_MERGE at a time), keeping each
+//           index once, and leaving out those in the files of distance d and
+//           d - 1.  Every move can be undone, so a neighbor of a state at
+//           distance d is d - 1, d or d + 1 moves from the goal, and what
+//           remains is distance d + 1
+//
+// Every file is read and written front to back, a chunk at a time, through a
+// FileChannel.  Once a distance has no states, the files of every distance
+// are merged into the table, which is written straight to a heuristic file
+// (see HeuristicFile.Writer), in the layout the solver maps.  The file is
+// the same, byte for byte, as saving the table of any engine of
+// PatternGenerator.
+//
+// The heap needed is the buffer (4 bytes an index) plus IO_SIZE per file
+// being read or written.  The disk needs 4 bytes per state for the distance
+// files, and up to 72 bytes per state at the widest distance for its runs.
+//
+// The number of states at each distance is written to PROGRESS_FILE as soon
+// as the distance's file is complete, so a generation that is cut short can
+// be started again with the same work directory, and carries on after the
+// last distance it finished.
+public class ExternalPatternGenerator {
+    // indices gathered before a run is written out, if not specified (32 MB)
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 23;
+	
+    // the most files merged at once
+    public static final int MAX_MERGE = 256;
+	
+    // bytes read or written at a time, per file
+    private static final int IO_SIZE = 1 << 16;
+	
+    // nanoseconds between reports of how far a distance has got
+    private static final long REPORT_INTERVAL = 10000000000L;
+	
+    // File in the work directory holding the table ID and size of the
+    // generation, then the number of states at each distance found so far,
+    // one line each
+    public static final String PROGRESS_FILE = "distances";
+	
+    // Reads the indices in a file, in order, a chunk at a time
+    private static class IndexReader implements Closeable {
+	private FileChannel channel;
+	private ByteBuffer chunk =
+	    ByteBuffer.allocate(IO_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	
+	IndexReader(Path file) throws IOException {
+	    channel = FileChannel.open(file, StandardOpenOption.READ);
+	    chunk.limit(0);
+	}
+	
+	// returns true if there are indices left
+	boolean hasNext() throws IOException {
+	    if (chunk.hasRemaining())
+		return true;
+	    chunk.clear();
+	    // a read can end part way through an index
+	    while (chunk.position() == 0 || chunk.position() % 4 != 0)
+		if (channel.read(chunk) < 0)
+		    break;
+	    chunk.flip();
+	    return chunk.hasRemaining();
+	}
+	
+	// returns the next index, without moving past it
+	int peek() {
+	    return chunk.getInt(chunk.position());
+	}
+	
+	// returns the next index
+	int next() {
+	    return chunk.getInt();
+	}
+	
+	public void close() throws IOException {
+	    channel.close();
+	}
+    }
+	
+    // Writes indices to a file, in order, a chunk at a time
+    private static class IndexWriter implements Closeable {
+	private FileChannel channel;
+	private ByteBuffer chunk =
+	    ByteBuffer.allocate(IO_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private long count;
+	
+	IndexWriter(Path file) throws IOException {
+	    channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				       StandardOpenOption.TRUNCATE_EXISTING,
+				       StandardOpenOption.WRITE);
+	}
+	
+	// appends the index to the file
+	void add(int index) throws IOException {
+	    if (!chunk.hasRemaining())
+		flush();
+	    chunk.putInt(index);
+	    count++;
+	}
+	
+	// returns the number of indices written
+	long getCount() {
+	    return count;
+	}
+	
+	private void flush() throws IOException {
+	    chunk.flip();
+	    while (chunk.hasRemaining())
+		channel.write(chunk);
+	    chunk.clear();
+	}
+	
+	public void close() throws IOException {
+	    try {
+		flush();
+	    } finally {
+		channel.close();
+	    }
+	}
+    }
+	
+    // Merges files of indices, each in order, into one sequence in order.
+    // The readers with indices left are kept in a binary heap, ordered by
+    // their next index
+    private static class Merge implements Closeable {
+	private IndexReader[] readers;
+	private int[] heap;
+	private int size;
+	
+	// the file the last index returned by next came from
+	private int source;
+	
+	Merge(List<Path> files) throws IOException {
+	    readers = new IndexReader[files.size()];
+	    heap = new int[readers.length];
+	    try {
+		for (int i = 0; i < readers.length; i++) {
+		    readers[i] = new IndexReader(files.get(i));
+		    if (readers[i].hasNext())
+			heap[size++] = i;
+		}
+	    } catch (IOException e) {
+		close();
+		throw e;
+	    }
+	    for (int i = size / 2 - 1; i >= 0; i--)
+		siftDown(i);
+	}
+	
+	// returns true if there are indices left
+	boolean hasNext() {
+	    return size > 0;
+	}
+	
+	// returns the smallest index left, without moving past it
+	int peek() {
+	    return readers[heap[0]].peek();
+	}
+	
+	// returns the smallest index left
+	int next() throws IOException {
+	    source = heap[0];
+	    int index = readers[source].next();
+	    if (!readers[source].hasNext())
+		heap[0] = heap[--size];
+	    siftDown(0);
+	    return index;
+	}
+	
+	// returns the position in the list of files of the last index's file
+	int getSource() {
+	    return source;
+	}
+	
+	// moves the reader at position i of the heap down to its place
+	private void siftDown(int i) {
+	    for (int child = 2*i + 1; child < size; child = 2*i + 1) {
+		if (child + 1 < size
+		    && readers[heap[child + 1]].peek()
+		    < readers[heap[child]].peek())
+		    child++;
+		if (readers[heap[i]].peek() <= readers[heap[child]].peek())
+		    break;
+		int reader = heap[i];
+		heap[i] = heap[child];
+		heap[child] = reader;
+		i = child;
+	    }
+	}
+	
+	public void close() throws IOException {
+	    IOException failure = null;
+	    for (IndexReader reader : readers) {
+		try {
+		    if (reader != null)
+			reader.close();
+		} catch (IOException e) {
+		    failure = e;
+		}
+	    }
+	    if (failure != null)
+		throw failure;
+	}
+    }
+	
+    // Generates the table of the space as generate(space, tableId, file,
+    // workDirectory, bufferSize) does, with a buffer of DEFAULT_BUFFER_SIZE
+    // indices
+    public static int[] generate(PatternSpace space, long tableId, Path file,
+				 Path workDirectory) throws IOException {
+	return generate(space, tableId, file, workDirectory,
+			DEFAULT_BUFFER_SIZE);
+    }
+	
+    // Generates the table of distances of the states of the space, and saves
+    // it with the specified ID to the specified file (see HeuristicFile),
+    // keeping the search's files in the work directory and gathering
+    // bufferSize indices in memory at a time.  Returns the number of states
+    // at each distance
+    public static int[] generate(PatternSpace space, long tableId, Path file,
+				 Path workDirectory, int bufferSize)
+	throws IOException {
+	if (bufferSize < Moves.NUM_MOVES)
+	    throw new IllegalArgumentException("Buffer too small: " + bufferSize);
+	Files.createDirectories(workDirectory);
+	// the runs of a distance that wasn't finished
+	try (DirectoryStream<Path> runs =
+	     Files.newDirectoryStream(workDirectory, "run-*.idx")) {
+	    for (Path run : runs)
+		Files.delete(run);
+	}
+	List<Path> levels = new ArrayList<Path>();
+	List<Integer> counts = resume(workDirectory, tableId, space.size(),
+				      levels);
+	if (counts == null) {
+	    counts = new ArrayList<Integer>();
+	    levels.add(workDirectory.resolve("distance-0.idx"));
+	    try (IndexWriter goal = new IndexWriter(levels.get(0))) {
+		goal.add(space.goal());
+	    }
+	    counts.add(1);
+	    saveProgress(workDirectory, tableId, space.size(), counts);
+	}
+	int[] buffer = new int[bufferSize];
+	long states = 0;
+	for (int count : counts)
+	    states += count;
+	long rotations = 0;
+	for (int depth = counts.size() - 1; counts.get(depth) > 0; depth++) {
+	    if (depth + 1 >= MyNibbleTable.EMPTY)
+		throw new IllegalStateException("Distances don't fit the table");
+	    long start = System.nanoTime();
+	    long lastReport = start;
+	    List<Path> runs = new ArrayList<Path>();
+	    int n = 0;
+	    int expanded = 0;
+	    try (IndexReader frontier = new IndexReader(levels.get(depth))) {
+		while (frontier.hasNext()) {
+		    if (n + Moves.NUM_MOVES > buffer.length) {
+			runs.add(writeRun(buffer, n, workDirectory, runs.size()));
+			n = 0;
+			if (System.nanoTime() - lastReport > REPORT_INTERVAL) {
+			    System.out.println("  expanded " + expanded + " of "
+					       + counts.get(depth) + " states");
+			    lastReport = System.nanoTime();
+			}
+		    }
+		    int index = frontier.next();
+		    for (int move = 0; move < Moves.NUM_MOVES; move++)
+			buffer[n++] = space.move(index, move);
+		    rotations += Moves.NUM_MOVES;
+		    expanded++;
+		}
+	    }
+	    if (n > 0)
+		runs.add(writeRun(buffer, n, workDirectory, runs.size()));
+	    // merge the runs down to as many as can be merged at once
+	    int numRuns = runs.size();
+	    while (runs.size() > MAX_MERGE) {
+		List<Path> merged = new ArrayList<Path>();
+		for (int i = 0; i < runs.size(); i += MAX_MERGE) {
+		    Path run = workDirectory.resolve("run-" + numRuns++ + ".idx");
+		    merge(runs.subList(i, Math.min(i + MAX_MERGE, runs.size())),
+			  new ArrayList<Path>(), run);
+		    merged.add(run);
+		}
+		runs = merged;
+	    }
+	    Path next = workDirectory.resolve("distance-" + (depth + 1) + ".idx");
+	    long found = merge(runs, levels.subList(Math.max(depth - 1, 0),
+						   depth + 1), next);
+	    levels.add(next);
+	    counts.add((int)found);
+	    saveProgress(workDirectory, tableId, space.size(), counts);
+	    states += found;
+	    System.out.println("Distance " + (depth + 1) + ": " + found
+			       + " states (" + numRuns + " runs, "
+			       + (System.nanoTime() - start) / 1000000 + " ms)");
+	}
+	System.out.println("States discovered: " + states);
+	System.out.println("Rotations performed: " + rotations);
+	System.out.println("Writing the table to " + file);
+	writeTable(space.size(), levels, tableId, file);
+	Files.delete(workDirectory.resolve(PROGRESS_FILE));
+	for (Path level : levels)
+	    Files.delete(level);
+	int[] distances = new int[counts.size() - 1];
+	for (int d = 0; d < distances.length; d++)
+	    distances[d] = counts.get(d);
+	return distances;
+    }
+	
+    // Returns the number of states at each distance found by an earlier
+    // generation of the same table in the work directory, and adds the
+    // files of those distances to levels.  Returns null if there was none,
+    // or its files can't be used
+    private static List<Integer> resume(Path workDirectory, long tableId,
+					int size, List<Path> levels) {
+	Path progress = workDirectory.resolve(PROGRESS_FILE);
+	if (!Files.exists(progress))
+	    return null;
+	try {
+	    List<String> lines =
+		Files.readAllLines(progress, StandardCharsets.US_ASCII);
+	    if (lines.size() < 2
+		|| !lines.get(0).equals(Long.toHexString(tableId) + " " + size))
+		throw new IOException(progress + " is for another table");
+	    List<Integer> counts = new ArrayList<Integer>();
+	    for (String line : lines.subList(1, lines.size())) {
+		int count = Integer.parseInt(line);
+		Path level =
+		    workDirectory.resolve("distance-" + counts.size() + ".idx");
+		if (Files.size(level) != 4L * count)
+		    throw new IOException(level + " doesn't hold " + count
+					  + " states");
+		counts.add(count);
+		levels.add(level);
+	    }
+	    System.out.println("Resuming from " + workDirectory
+			       + " after distance " + (counts.size() - 1));
+	    return counts;
+	} catch (IOException | NumberFormatException e) {
+	    System.out.println("Unable to resume: " + e.getMessage());
+	    levels.clear();
+	    return null;
+	}
+    }
+	
+    // Writes the table ID and size, and the number of states at each
+    // distance so far, to the progress file (replacing it in one step)
+    private static void saveProgress(Path workDirectory, long tableId,
+				     int size, List<Integer> counts)
+	throws IOException {
+	List<String> lines = new ArrayList<String>();
+	lines.add(Long.toHexString(tableId) + " " + size);
+	for (int count : counts)
+	    lines.add(Integer.toString(count));
+	Path progress = workDirectory.resolve(PROGRESS_FILE);
+	Path temp = progress.resolveSibling(PROGRESS_FILE + ".tmp");
+	Files.write(temp, lines, StandardCharsets.US_ASCII);
+	Files.move(temp, progress, StandardCopyOption.REPLACE_EXISTING,
+		   StandardCopyOption.ATOMIC_MOVE);
+    }
+	
+    // Sorts the first n indices of the buffer, and writes them out without
+    // duplicates as the run with the specified number
+    private static Path writeRun(int[] buffer, int n, Path workDirectory,
+				 int number) throws IOException {
+	Arrays.sort(buffer, 0, n);
+	Path run = workDirectory.resolve("run-" + number + ".idx");
+	try (IndexWriter out = new IndexWriter(run)) {
+	    for (int i = 0; i < n; i++)
+		if (i == 0 || buffer[i] != buffer[i - 1])
+		    out.add(buffer[i]);
+	}
+	return run;
+    }
+	
+    // Merges the runs into the output file, keeping each index once and
+    // leaving out those in the excluded files, and deletes the runs.
+    // Returns the number of indices written
+    private static long merge(List<Path> runs, List<Path> excluded,
+			      Path output) throws IOException {
+	long count;
+	try (Merge merge = new Merge(runs);
+	     Merge exclude = new Merge(excluded);
+	     IndexWriter out = new IndexWriter(output)) {
+	    int last = -1;
+	    while (merge.hasNext()) {
+		int index = merge.next();
+		if (index == last)
+		    continue;
+		last = index;
+		while (exclude.hasNext() && exclude.peek() < index)
+		    exclude.next();
+		if (!exclude.hasNext() || exclude.peek() != index)
+		    out.add(index);
+	    }
+	    count = out.getCount();
+	}
+	for (Path run : runs)
+	    Files.delete(run);
+	return count;
+    }
+	
+    // Writes the table of the specified size to the file: the entry of each
+    // index is the distance whose file holds it (or EMPTY if none does)
+    private static void writeTable(int size, List<Path> levels, long tableId,
+				   Path file) throws IOException {
+	try (Merge merge = new Merge(levels);
+	     HeuristicFile.Writer writer =
+		 new HeuristicFile.Writer(file, size, tableId)) {
+	    ByteBuffer chunk = ByteBuffer.allocate(IO_SIZE);
+	    // two entries to a byte, the even index in the low nibble
+	    for (long index = 0; index < size; index += 2) {
+		int low = MyNibbleTable.EMPTY;
+		int high = MyNibbleTable.EMPTY;
+		if (merge.hasNext() && merge.peek() == index) {
+		    merge.next();
+		    low = merge.getSource();
+		}
+		if (merge.hasNext() && merge.peek() == index + 1) {
+		    merge.next();
+		    high = merge.getSource();
+		}
+		chunk.put((byte)(low | high << 4));
+		if (!chunk.hasRemaining()) {
+		    chunk.flip();
+		    writer.write(chunk);
+		    chunk.clear();
+		}
+	    }
+	    chunk.flip();
+	    writer.write(chunk);
+	    writer.finish();
+	}
+    }
+}
@@ -0,0 +1,19 @@
+package heuristics;
+
+// A search heuristic for the full Rubik's Cube.  Implementations must never
+// overestimate the number of moves needed to solve the cube (i.e. they must
+// be admissible), or IDA* will no longer find the shortest solution.
+public interface Heuristic {
+    // returns a lower bound on the number of moves needed to solve the cube
+    // with the specified corner and edge cube states (encoded as described in
+    // rotations.CornerCubeMoves and rotations.EdgeCubeMoves)
+    int estimate(long cornerCube, long edgeCube);
+	
+    // Returns estimate(cornerCube, edgeCube), except that once the estimate
+    // is known to exceed bound, any value above bound may be returned.  The
+    // search only needs to know whether a cube is within the bound, so a
+    // heuristic made of several lookups can skip the rest of them
+    default int estimate(long cornerCube, long edgeCube, int bound) {
+	return estimate(cornerCube, edgeCube);
+    }
+}
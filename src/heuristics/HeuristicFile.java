@@ -0,0 +1,275 @@
+package heuristics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import structures.*;
+
+// Reads and writes heuristic tables to binary files, so that the breadth-first
+// enumerations only have to be done once per machine.
+//
+// The file is laid out so that it can be mapped straight into memory:
+//
+//   offset  0: magic number ("RCPD")
+//   offset  4: encoding version (bumped whenever the table layout changes)
+//   offset  8: number of entries in the table
+//   offset 16: number of payload bytes following the header
+//   offset 24: CRC32 checksum of the payload
+//   offset 32: ID of the table (identifies which cubies the table covers)
+//   offset 40: 0 for a finished table.  For a checkpoint of a table being
+//              generated (see PatternCheckpoint), the last distance filled
+//              in so far plus one
+//   offset 48: for a checkpoint, the number of states at that distance
+//   offset 56: reserved (zero) up to HEADER_SIZE
+//   offset 64: payload
+//
+// All values are little-endian.  The payload of the current encoding is the
+// packed contents of a MyNibbleTable: 4 bits per entry, two entries to a byte.
+// The entries are in the order of the indexer of the heuristic (CornerIndexer
+// or EdgeIndexer).  The payload of a PerimeterTable is its hash table as it
+// is held in memory, and its number of entries is the number of slots.
+//
+// A table too big to hold in memory can be written a chunk at a time with a
+// Writer (see ExternalPatternGenerator), and is read back like any other.
+public class HeuristicFile {
+    // identifies a heuristic file
+    public static final int MAGIC = 0x44504352; // "RCPD" in little-endian
+
+    // version of the table layout written by this class
+    public static final int ENCODING_VERSION = 4;
+
+    // the payload starts on a 64 byte boundary
+    public static final int HEADER_SIZE = 64;
+
+    // size of the chunks used while checksumming
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    // Writes a table to a file one chunk of the payload at a time.  As with
+    // save, the table goes to a temporary file first, which finish moves
+    // into place once the whole payload and the header are written; closing
+    // a Writer before then deletes the temporary file
+    public static class Writer implements Closeable {
+	private Path file;
+	private Path temp;
+	private long entries;
+	private long payload;
+	private long tableId;
+	private FileChannel channel;
+	private CRC32 crc = new CRC32();
+
+	// the header fields of a checkpoint (see setProgress)
+	private long distance;
+	private long states;
+
+	// number of payload bytes written so far
+	private long written;
+
+	private boolean finished;
+
+	// Starts writing the nibble table (as saved by save) with the
+	// specified number of entries and ID to the specified file
+	public Writer(Path file, long entries, long tableId)
+	    throws IOException {
+	    this(file, entries, (entries + 1) / 2, tableId);
+	}
+
+	// starts writing a table of payload bytes
+	private Writer(Path file, long entries, long payload, long tableId)
+	    throws IOException {
+	    this.file = file;
+	    this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+	    this.entries = entries;
+	    this.payload = payload;
+	    this.tableId = tableId;
+	    channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				       StandardOpenOption.TRUNCATE_EXISTING,
+				       StandardOpenOption.WRITE);
+	    channel.position(HEADER_SIZE);
+	}
+
+	// Marks the file as a checkpoint of a table filled in up to the
+	// specified distance, which has the specified number of states
+	void setProgress(int distance, long states) {
+	    this.distance = distance + 1;
+	    this.states = states;
+	}
+
+	// appends the remaining bytes of the buffer to the payload
+	public void write(ByteBuffer bytes) throws IOException {
+	    if (written + bytes.remaining() > payload)
+		throw new IllegalStateException("Payload too long");
+	    crc.update(bytes.duplicate());
+	    while (bytes.hasRemaining())
+		written += channel.write(bytes);
+	}
+
+	// Writes the header, once the whole payload has been written, and
+	// moves the file into place
+	public void finish() throws IOException {
+	    if (written != payload)
+		throw new IllegalStateException("Payload has " + written
+						+ " of " + payload + " bytes");
+	    // the header goes in last, once the checksum is known
+	    channel.write(newHeader(entries, payload, crc.getValue(), tableId,
+				    distance, states), 0);
+	    channel.force(true);
+	    channel.close();
+	    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+		       StandardCopyOption.ATOMIC_MOVE);
+	    finished = true;
+	}
+
+	// stops writing, deleting the temporary file unless finished
+	public void close() throws IOException {
+	    channel.close();
+	    if (!finished)
+		Files.deleteIfExists(temp);
+	}
+    }
+
+    // Writes the heuristic table with the specified ID to the specified file.
+    // The table is first written to a temporary file in the same directory and
+    // then moved into place, so a crash half way through never leaves a
+    // truncated table behind
+    public static void save(MyNibbleTable heuristic, long tableId, Path file)
+	throws IOException {
+	save(heuristic.getTable(), heuristic.getCapacity(), tableId, file);
+    }
+
+    // Writes the perimeter table to the specified file, as save does
+    public static void savePerimeter(PerimeterTable perimeter, Path file)
+	throws IOException {
+	save(perimeter.getTable(),
+	     PerimeterTable.numSlots(perimeter.getRadius()),
+	     PerimeterTable.tableId(perimeter.getRadius()), file);
+    }
+
+    // writes the payload, a table of the specified number of entries
+    private static void save(ByteBuffer table, long entries, long tableId,
+			     Path file) throws IOException {
+	table = table.duplicate();
+	table.rewind();
+	try (Writer writer = new Writer(file, entries, table.capacity(),
+					tableId)) {
+	    writer.write(table);
+	    writer.finish();
+	}
+    }
+
+    // Maps the heuristic table stored in the specified file into memory, after
+    // checking that it has the specified ID.  The mapping is read-only, so the
+    // operating system can share the same pages between every solver running
+    // on this machine.  If verify is true, the payload checksum is computed
+    // and compared against the header before the table is returned
+    public static MyNibbleTable load(Path file, long tableId, boolean verify)
+	throws IOException {
+	try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+	    long entries =
+		readHeader(channel, file, tableId, verify, 4, false).getLong(8);
+	    // the mappings stay valid after the channel is closed
+	    return new MyNibbleTable(channel.map(FileChannel.MapMode.READ_ONLY,
+						 HEADER_SIZE,
+						 MyNibbleTable.numBytes((int)entries)),
+				     (int)entries);
+	}
+    }
+
+    // Maps the perimeter table of the specified radius stored in the
+    // specified file into memory, as load does
+    public static PerimeterTable loadPerimeter(Path file, int radius,
+					       boolean verify)
+	throws IOException {
+	try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+	    long entries = readHeader(channel, file,
+				      PerimeterTable.tableId(radius), verify,
+				      PerimeterTable.SLOT_SIZE * 8, false)
+		.getLong(8);
+	    if (entries != PerimeterTable.numSlots(radius))
+		throw new IOException(file + ": corrupt header");
+	    return new PerimeterTable(channel.map(FileChannel.MapMode.READ_ONLY,
+						  HEADER_SIZE,
+						  entries * PerimeterTable.SLOT_SIZE),
+				      radius);
+	}
+    }
+
+    // Reads and checks the header of the file, whose entries take
+    // bitsPerEntry bits each, and which must be a checkpoint if checkpoint is
+    // true, or else a finished table.  Returns the header.  If verify is
+    // true, the payload checksum is checked too
+    static ByteBuffer readHeader(FileChannel channel, Path file, long tableId,
+				 boolean verify, int bitsPerEntry,
+				 boolean checkpoint) throws IOException {
+	ByteBuffer header =
+	    ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	while (header.hasRemaining())
+	    if (channel.read(header) < 0)
+		throw new IOException(file + ": truncated header");
+	header.flip();
+	if (header.getInt(0) != MAGIC)
+	    throw new IOException(file + ": not a heuristic file");
+	if (header.getInt(4) != ENCODING_VERSION)
+	    throw new IOException(file + ": unsupported encoding version "
+				  + header.getInt(4));
+	long entries = header.getLong(8);
+	long payload = header.getLong(16);
+	long checksum = header.getLong(24);
+	if (header.getLong(32) != tableId)
+	    throw new IOException(file + ": holds a different table");
+	if ((header.getLong(40) != 0) != checkpoint)
+	    throw new IOException(file + (checkpoint ? ": not a checkpoint"
+					  : ": holds an unfinished table"));
+	if (entries <= 0 || entries > Integer.MAX_VALUE
+	    || payload != (entries * bitsPerEntry + 7) / 8
+	    || channel.size() != HEADER_SIZE + payload)
+	    throw new IOException(file + ": corrupt header");
+	if (verify && checksum(channel, HEADER_SIZE, payload) != checksum)
+	    throw new IOException(file + ": checksum mismatch");
+	return header;
+    }
+
+    // builds the header for a payload with the given properties
+    private static ByteBuffer newHeader(long entries, long payload, long checksum,
+					long tableId, long distance,
+					long states) {
+	ByteBuffer header =
+	    ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	header.putInt(MAGIC);
+	header.putInt(ENCODING_VERSION);
+	header.putLong(entries);
+	header.putLong(payload);
+	header.putLong(checksum);
+	header.putLong(tableId);
+	header.putLong(distance);
+	header.putLong(states);
+	header.rewind();
+	return header;
+    }
+
+    // computes the CRC32 of length bytes of the channel, starting at position
+    private static long checksum(FileChannel channel, long position, long length)
+	throws IOException {
+	CRC32 crc = new CRC32();
+	ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+	long end = position + length;
+	while (position < end) {
+	    chunk.clear();
+	    if (end - position < CHUNK_SIZE)
+		chunk.limit((int)(end - position));
+	    int read = channel.read(chunk, position);
+	    if (read < 0)
+		throw new IOException("Unexpected end of file");
+	    crc.update(chunk.array(), 0, read);
+	    position += read;
+	}
+	return crc.getValue();
+    }
+}
@@ -0,0 +1,175 @@
+package heuristics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import rotations.*;
+import structures.*;
+
+// Builds the heuristic the solver searches with from the tables in a
+// directory: the corner heuristic together with two edge heuristics, each
+// also looked up for the inverse of the cube.  The second edge cubies are
+// the first ones turned by a symmetry, so both edge heuristics share one
+// table.
+//
+// If a table doesn't exist yet, or can't be used, it is generated and written
+// to the directory for the next run.  The tables that do exist are mapped
+// read-only, so every heuristic loaded from the same directory shares one
+// copy of them.  An edge table can be generated on disk instead of in memory
+// (see setWorkDirectory), for machines without the memory to hold it twice.
+// While a table is generated in memory, it is checkpointed after every
+// distance (see PatternCheckpoint) to a file next to the table's, so a run
+// cut short picks up where it left off.
+//
+// Loading a table checks its header (see HeuristicFile), which catches a
+// file of the wrong table, version or size.  The checksum of the whole table
+// is only checked if setVerify(true) was called, since that reads every page
+// of every table up front, rather than as the search first needs it.  A
+// table generated on disk is always checked once it has been written.
+public class HeuristicLoader {
+    // files the heuristic tables are stored in
+    public static final String CORNER_FILE = "corners.pdb";
+    public static final String EDGE_FILE = "edges1.pdb";
+    public static final String PERIMETER_FILE = "perimeter.pdb";
+	
+    // Directory in which ExternalPatternGenerator keeps its files while it
+    // generates a missing edge table, or null to generate it in memory
+    private static volatile Path workDirectory;
+	
+    // whether tables are checked against their checksums when loaded
+    private static volatile boolean verify;
+	
+    // Makes missing edge tables be generated on disk, keeping the files of
+    // the search in the specified directory (or in memory, if null)
+    public static void setWorkDirectory(Path directory) {
+	workDirectory = directory;
+    }
+	
+    // Makes the tables loaded from now on be checked against the checksums
+    // in their headers (if true), or only have their headers checked (if
+    // false, the default)
+    public static void setVerify(boolean enabled) {
+	verify = enabled;
+    }
+	
+    // Returns the solver's heuristic, using the tables in the specified
+    // directory
+    public static Heuristic load(Path directory) {
+	Heuristic firstEdges = loadEdgeHeuristic(directory.resolve(EDGE_FILE),
+						 EdgeHeuristic.FIRST_EDGES);
+	Heuristic secondEdges = new SymmetricHeuristic(firstEdges,
+	    Symmetries.mapping(EdgeHeuristic.SECOND_EDGES,
+			       EdgeHeuristic.FIRST_EDGES));
+	// the inverse lookups come last, since the search only gets to them
+	// when the others don't prune the cube
+	return new MaxHeuristic(new Heuristic[] {
+		loadCornerHeuristic(directory.resolve(CORNER_FILE)),
+		firstEdges, secondEdges,
+		new InverseHeuristic(firstEdges),
+		new InverseHeuristic(secondEdges)});
+    }
+	
+    // Maps the corner heuristic from the specified file, generating it (and
+    // saving it to the file) first if necessary
+    public static Heuristic loadCornerHeuristic(Path file) {
+	MyNibbleTable table = loadTable(file, CornerHeuristic.TABLE_ID, verify);
+	if (table != null)
+	    return new CornerHeuristic(table);
+	PatternCheckpoint checkpoint =
+	    new PatternCheckpoint(checkpointFile(file),
+				  CornerHeuristic.FULL_TABLE_ID);
+	CornerHeuristic heuristic = new CornerHeuristic(checkpoint);
+	if (saveTable(heuristic.getTable(), CornerHeuristic.TABLE_ID, file))
+	    checkpoint.delete();
+	return heuristic;
+    }
+	
+    // Maps the heuristic for the specified edge cubies from the specified
+    // file, generating it (and saving it to the file) first if necessary
+    public static Heuristic loadEdgeHeuristic(Path file, int[] edges) {
+	long tableId = EdgeHeuristic.tableId(edges);
+	MyNibbleTable table = loadTable(file, tableId, verify);
+	if (table != null)
+	    return new EdgeHeuristic(edges, table);
+	Path directory = workDirectory;
+	if (directory != null) {
+	    // the table goes straight to the file, and is mapped from there
+	    try {
+		System.out.println("Generating edge cube heuristic on disk...");
+		ExternalPatternGenerator.generate(new EdgeSpace(edges), tableId,
+						  file, directory);
+		table = loadTable(file, tableId, true);
+		if (table != null)
+		    return new EdgeHeuristic(edges, table);
+	    } catch (IOException e) {
+		System.out.println("Unable to generate the heuristic on disk: "
+				   + e.getMessage());
+	    }
+	}
+	PatternCheckpoint checkpoint =
+	    new PatternCheckpoint(checkpointFile(file), tableId);
+	EdgeHeuristic heuristic = new EdgeHeuristic(edges, checkpoint);
+	if (saveTable(heuristic.getTable(), tableId, file))
+	    checkpoint.delete();
+	return heuristic;
+    }
+	
+    // Maps the perimeter table of the specified radius from the specified
+    // file, generating it (and saving it to the file) first if necessary
+    public static PerimeterTable loadPerimeter(Path file, int radius) {
+	if (Files.exists(file)) {
+	    try {
+		System.out.println("Loading perimeter table from " + file);
+		return HeuristicFile.loadPerimeter(file, radius, verify);
+	    } catch (IOException e) {
+		System.out.println("Unable to load the perimeter table: "
+				   + e.getMessage());
+	    }
+	}
+	PerimeterTable perimeter = new PerimeterTable(radius);
+	try {
+	    System.out.println("Saving perimeter table to " + file);
+	    HeuristicFile.savePerimeter(perimeter, file);
+	} catch (IOException e) {
+	    System.out.println("Unable to save the perimeter table: "
+			       + e.getMessage());
+	}
+	return perimeter;
+    }
+	
+    // Maps the heuristic table with the specified ID from the specified file,
+    // checking it against its checksum if verify is true.  Returns null if
+    // there is no such file, or it can't be used
+    private static MyNibbleTable loadTable(Path file, long tableId,
+					   boolean verify) {
+	if (!Files.exists(file))
+	    return null;
+	try {
+	    System.out.println("Loading heuristic table from " + file);
+	    return HeuristicFile.load(file, tableId, verify);
+	} catch (IOException e) {
+	    System.out.println("Unable to load the heuristic: " + e.getMessage());
+	    return null;
+	}
+    }
+	
+    // Saves a freshly generated heuristic table to the specified file.
+    // Returns true if it was saved
+    private static boolean saveTable(MyNibbleTable table, long tableId,
+				     Path file) {
+	try {
+	    System.out.println("Saving heuristic table to " + file);
+	    HeuristicFile.save(table, tableId, file);
+	    return true;
+	} catch (IOException e) {
+	    System.out.println("Unable to save the heuristic: " + e.getMessage());
+	    return false;
+	}
+    }
+	
+    // returns the file the generation of a table is checkpointed to
+    private static Path checkpointFile(Path file) {
+	return file.resolveSibling(file.getFileName() + ".checkpoint");
+    }
+}
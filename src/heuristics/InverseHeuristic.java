@@ -0,0 +1,22 @@
+package heuristics;
+
+import rotations.*;
+
+// Looks up another heuristic for the inverse of the cube (see
+// rotations.Symmetries.invertCorners).  A cube and its inverse are solved by
+// sequences of the same length, so this is as admissible as the heuristic it
+// wraps.  A pattern database over some of the cubies usually gives a
+// different estimate for the inverse, since the inverse moves other cubies
+// into those positions
+public class InverseHeuristic implements Heuristic {
+    private Heuristic heuristic;
+	
+    public InverseHeuristic(Heuristic heuristic) {
+	this.heuristic = heuristic;
+    }
+	
+    public int estimate(long cornerCube, long edgeCube) {
+	return heuristic.estimate(Symmetries.invertCorners(cornerCube),
+				  Symmetries.invertEdges(edgeCube));
+    }
+}
@@ -0,0 +1,33 @@
+package heuristics;
+
+// Combines several admissible heuristics by taking the largest of their
+// estimates, which is still admissible and never weaker than any of them.
+// Against a bound, the heuristics are tried in order until one exceeds it,
+// so the cheapest and strongest should come first
+public class MaxHeuristic implements Heuristic {
+    private Heuristic[] heuristics;
+	
+    public MaxHeuristic(Heuristic[] heuristics) {
+	if (heuristics.length < 1)
+	    throw new IllegalArgumentException("At least one heuristic is required");
+	this.heuristics = heuristics.clone();
+    }
+	
+    // returns the largest estimate of the combined heuristics
+    public int estimate(long cornerCube, long edgeCube) {
+	int max = 0;
+	for (Heuristic h : heuristics)
+	    max = Math.max(max, h.estimate(cornerCube, edgeCube));
+	return max;
+    }
+	
+    public int estimate(long cornerCube, long edgeCube, int bound) {
+	int max = 0;
+	for (Heuristic h : heuristics) {
+	    max = Math.max(max, h.estimate(cornerCube, edgeCube, bound));
+	    if (max > bound)
+		break;
+	}
+	return max;
+    }
+}
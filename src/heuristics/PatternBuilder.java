@@ -0,0 +1,180 @@
+package heuristics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import structures.*;
+
+// Builds the pattern database of any subset of the cubies (see SubsetSpace),
+// and reports what it costs and what it gives: the number of states and the
+// size of the table, the time the build took, the number of states at each
+// distance, and the mean distance.  Each state of a subset stands for as
+// many whole cubes as any other, so the mean distance is the mean estimate
+// the table gives over all cubes.  Comparing these for different subsets
+// shows which tables are worth their memory.
+//
+// Usage: java heuristics.PatternBuilder [--corners ids] [--no-twist]
+//                                       [--edges ids] [--no-flip]
+//                                       [--engine levels|queue|external]
+//                                       [--threads n] [--bfs-dir directory]
+//                                       [--out file]
+//
+// ids are cubie IDs separated by commas (see rotations.CornerCubeMoves and
+// EdgeCubeMoves), or "all".  --no-twist and --no-flip leave the orientations
+// of the corners or edges out of the states.  The engines are those of
+// PatternGenerator (levels runs on n threads, one per core by default) and
+// ExternalPatternGenerator (external, which keeps its files in the --bfs-dir
+// directory).  --out saves the table to the file, as HeuristicFile does; a
+// subset of edges with their flips is saved with its EdgeHeuristic ID, so
+// the solver can load it.  A levels build with --out is checkpointed (see
+// PatternCheckpoint) next to the file.
+public class PatternBuilder {
+    public static void main(String args[]) throws IOException {
+	int[] corners = {};
+	int[] edges = {};
+	boolean twist = true;
+	boolean flip = true;
+	String engine = "levels";
+	int threads = Runtime.getRuntime().availableProcessors();
+	Path workDirectory = null;
+	Path out = null;
+	boolean valid = true;
+	try {
+	    for (int arg = 0; arg < args.length; arg++) {
+		boolean hasValue = arg + 1 < args.length;
+		if (args[arg].equals("--corners") && hasValue)
+		    corners = parseIds(args[++arg], 8);
+		else if (args[arg].equals("--edges") && hasValue)
+		    edges = parseIds(args[++arg], 12);
+		else if (args[arg].equals("--no-twist"))
+		    twist = false;
+		else if (args[arg].equals("--no-flip"))
+		    flip = false;
+		else if (args[arg].equals("--engine") && hasValue)
+		    engine = args[++arg];
+		else if (args[arg].equals("--threads") && hasValue)
+		    threads = Integer.parseInt(args[++arg]);
+		else if (args[arg].equals("--bfs-dir") && hasValue)
+		    workDirectory = Paths.get(args[++arg]);
+		else if (args[arg].equals("--out") && hasValue)
+		    out = Paths.get(args[++arg]);
+		else
+		    valid = false;
+	    }
+	} catch (NumberFormatException e) {
+	    valid = false;
+	}
+	if (!valid || threads < 1 || corners.length + edges.length == 0
+	    || !Arrays.asList("levels", "queue", "external").contains(engine)
+	    || (engine.equals("external") && workDirectory == null)) {
+	    System.out.println("Usage: java heuristics.PatternBuilder"
+			       + " [--corners ids] [--no-twist]"
+			       + " [--edges ids] [--no-flip]"
+			       + " [--engine levels|queue|external]"
+			       + " [--threads n] [--bfs-dir directory]"
+			       + " [--out file]");
+	    return;
+	}
+	SubsetSpace space;
+	try {
+	    space = new SubsetSpace(corners, twist, edges, flip);
+	} catch (IllegalArgumentException e) {
+	    System.out.println(e.getMessage());
+	    return;
+	}
+	long tableId = space.tableId();
+	if (corners.length == 0 && flip && edges.length <= 7)
+	    tableId = EdgeHeuristic.tableId(edges);
+	System.out.println("Building the table of " + space + " with the "
+			   + engine + " engine");
+	long start = System.nanoTime();
+	long[] counts = new long[MyNibbleTable.EMPTY];
+	if (engine.equals("external")) {
+	    // the table only exists as a file, so one is needed either way
+	    Path file = out != null ? out : workDirectory.resolve("table.pdb");
+	    int[] distances =
+		ExternalPatternGenerator.generate(space, tableId, file,
+						  workDirectory);
+	    for (int d = 0; d < distances.length; d++)
+		counts[d] = distances[d];
+	    if (out == null)
+		Files.delete(file);
+	} else {
+	    MyNibbleTable table;
+	    PatternCheckpoint checkpoint = null;
+	    if (engine.equals("queue"))
+		table = PatternGenerator.byQueue(space);
+	    else {
+		if (out != null)
+		    checkpoint = new PatternCheckpoint(
+			out.resolveSibling(out.getFileName() + ".checkpoint"),
+			tableId);
+		if (threads > 1) {
+		    ForkJoinPool pool = new ForkJoinPool(threads);
+		    table = PatternGenerator.byLevels(space, pool, checkpoint);
+		    pool.shutdown();
+		} else
+		    table = PatternGenerator.byLevels(space, checkpoint);
+	    }
+	    if (out != null)
+		HeuristicFile.save(table, tableId, out);
+	    if (checkpoint != null)
+		checkpoint.delete();
+	    for (int i = 0; i < table.getCapacity(); i++)
+		if (table.get(i) != MyNibbleTable.EMPTY)
+		    counts[table.get(i)]++;
+	}
+	long millis = (System.nanoTime() - start) / 1000000;
+	printReport(space, counts, millis);
+	if (out != null)
+	    System.out.println("Saved to " + out);
+    }
+	
+    // Prints the size of the table, the time taken, the number of states at
+    // each distance and the mean distance
+    private static void printReport(SubsetSpace space, long[] counts,
+				    long millis) {
+	long reachable = 0;
+	long total = 0;
+	for (int d = 0; d < counts.length; d++) {
+	    reachable += counts[d];
+	    total += d * counts[d];
+	}
+	System.out.println();
+	System.out.println("Subset:      " + space);
+	System.out.println("States:      " + space.size() + " (" + reachable
+			   + " reachable)");
+	System.out.println("Table size:  "
+			   + MyNibbleTable.numBytes(space.size()) + " bytes");
+	System.out.println("Build time:  " + millis + " ms");
+	System.out.println("Distance     States");
+	for (int d = 0; d < counts.length; d++)
+	    if (counts[d] > 0)
+		System.out.println(String.format("%8d %12d  %6.2f%%", d,
+						 counts[d], 100.0 * counts[d]
+						 / reachable));
+	System.out.println(String.format("Mean heuristic: %.3f",
+					 (double)total / reachable));
+    }
+	
+    // Parses cubie IDs separated by commas, or "all" for all of the
+    // specified number of cubies
+    private static int[] parseIds(String ids, int numCubies) {
+	if (ids.equals("all")) {
+	    int[] all = new int[numCubies];
+	    for (int i = 0; i < numCubies; i++)
+		all[i] = i;
+	    return all;
+	}
+	String[] parts = ids.split(",");
+	int[] parsed = new int[parts.length];
+	for (int i = 0; i < parts.length; i++)
+	    parsed[i] = Integer.parseInt(parts[i].trim());
+	Arrays.sort(parsed);
+	return parsed;
+    }
+}
@@ -0,0 +1,133 @@
+package heuristics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import structures.*;
+
+// class PatternCheckpoint lets PatternGenerator.byLevels pick up a generation
+// where it left off.  At the end of every distance, the table as filled in so
+// far is saved to a file (see HeuristicFile), along with the last distance
+// filled in and its number of states.  A generation given the same
+// checkpoint again starts from there instead of from the goal, so a crash
+// loses at most one distance.  The table is all the state byLevels keeps, so
+// a resumed generation finishes with the same table, byte for byte, as one
+// that ran straight through.
+//
+// A checkpoint is only used if its checksum is right, it is for a table of
+// the same ID and size, and the table holds exactly the number of states at
+// the last distance that was saved with it, and none beyond it.
+public class PatternCheckpoint {
+    private Path file;
+    private long tableId;
+	
+    // the last distance in the table loaded, its number of states, and the
+    // number of states not reached yet
+    private int distance;
+    private long states;
+    private long unvisited;
+	
+    // Creates a checkpoint of the table with the specified ID, saved to the
+    // specified file
+    public PatternCheckpoint(Path file, long tableId) {
+	this.file = file;
+	this.tableId = tableId;
+    }
+	
+    // returns the file the checkpoint is saved to
+    public Path getFile() {
+	return file;
+    }
+	
+    // Returns the table last saved, for a space of the specified size, as a
+    // table that can be written to.  Returns null if there is none, or it
+    // can't be used
+    MyNibbleTable load(int size) {
+	if (!Files.exists(file))
+	    return null;
+	try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+	    ByteBuffer header =
+		HeuristicFile.readHeader(channel, file, tableId, true, 4, true);
+	    if (header.getLong(8) != size)
+		throw new IOException(file + ": holds a table of another size");
+	    ByteBuffer payload =
+		ByteBuffer.allocate(MyNibbleTable.numBytes(size));
+	    while (payload.hasRemaining())
+		if (channel.read(payload, HeuristicFile.HEADER_SIZE
+				 + payload.position()) < 0)
+		    throw new IOException(file + ": truncated");
+	    payload.rewind();
+	    MyNibbleTable table = new MyNibbleTable(payload, size);
+	    int last = (int)header.getLong(40) - 1;
+	    if (last < 0 || last >= MyNibbleTable.EMPTY)
+		throw new IOException(file + ": corrupt header");
+	    long[] counts = new long[MyNibbleTable.EMPTY + 1];
+	    for (int i = 0; i < size; i++)
+		counts[table.get(i)]++;
+	    for (int d = last + 1; d < MyNibbleTable.EMPTY; d++)
+		if (counts[d] != 0)
+		    throw new IOException(file + ": holds states beyond distance "
+					  + last);
+	    if (counts[last] != header.getLong(48))
+		throw new IOException(file + ": has " + counts[last]
+				      + " states at distance " + last + ", not "
+				      + header.getLong(48));
+	    distance = last;
+	    states = counts[last];
+	    unvisited = counts[MyNibbleTable.EMPTY];
+	    System.out.println("Resuming from " + file + " after distance "
+			       + distance);
+	    return table;
+	} catch (IOException e) {
+	    System.out.println("Unable to resume from the checkpoint: "
+			       + e.getMessage());
+	    return null;
+	}
+    }
+	
+    // returns the last distance filled in in the table loaded
+    int getDistance() {
+	return distance;
+    }
+	
+    // returns the number of states at the last distance of the table loaded
+    long getStates() {
+	return states;
+    }
+	
+    // returns the number of states the table loaded has no distance for yet
+    long getUnvisited() {
+	return unvisited;
+    }
+	
+    // Saves the table, filled in up to the specified distance, which has the
+    // specified number of states.  The file is replaced in one step, so a
+    // crash while saving leaves the previous checkpoint in place
+    void save(MyNibbleTable table, int distance, long states) {
+	ByteBuffer payload = table.getTable();
+	payload.rewind();
+	try (HeuristicFile.Writer writer =
+	     new HeuristicFile.Writer(file, table.getCapacity(), tableId)) {
+	    writer.setProgress(distance, states);
+	    writer.write(payload);
+	    writer.finish();
+	} catch (IOException e) {
+	    System.out.println("Unable to save the checkpoint: "
+			       + e.getMessage());
+	}
+    }
+	
+    // deletes the checkpoint, once the table it was for is finished
+    public void delete() {
+	try {
+	    Files.deleteIfExists(file);
+	} catch (IOException e) {
+	    System.out.println("Unable to delete " + file + ": "
+			       + e.getMessage());
+	}
+    }
+}
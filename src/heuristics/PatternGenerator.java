@@ -0,0 +1,263 @@
+package heuristics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import rotations.*;
+import structures.*;
+
+// Fills a table with the distance (in moves) of every state of a
+// PatternSpace from its goal.  There are two engines:
+//
+//   byQueue:  a breadth-first search with a queue of states, each tagged with
+//             the move it was reached by so that redundant moves can be
+//             skipped (see Moves.successors).  The queue has room for every
+//             state, which is 8 bytes a state on top of the table
+//   byLevels: fills the table one distance at a time, using the table itself
+//             as the frontier, so it needs no memory beyond the table.  Early
+//             on, it scans for the states at distance d and writes their
+//             unvisited neighbors as d + 1 (forward).  Once the unvisited
+//             states are fewer than those at distance d, it scans the
+//             unvisited states instead and writes d + 1 to any of them with a
+//             neighbor at distance d (backward), which only has to find one
+//             such neighbor per state
+//
+// byLevels can also run on the threads of a ForkJoinPool, each level split
+// into ranges of indices.  The threads write to a MyAtomicNibbleTable, so an
+// entry is written once, by whichever thread gets there first; since every
+// thread writes the same value (the current distance plus one), the finished
+// table is the same however the work was split.  Every engine produces the
+// same table, byte for byte.  ExternalPatternGenerator produces it too, with
+// the search kept on disk rather than in memory.
+//
+// Given a PatternCheckpoint, byLevels saves the table at the end of every
+// distance, and starts from the last one saved rather than from the goal.
+public class PatternGenerator {
+    // number of indices below which a range isn't split any further
+    private static final int CHUNK_SIZE = 1 << 16;
+	
+    // Searches one level of byLevels over a range of indices, returning the
+    // number of states found at the next distance
+    private static class LevelTask extends RecursiveTask<Integer> {
+	private static final long serialVersionUID = 1L;
+	
+	private PatternSpace space;
+	private MyAtomicNibbleTable h;
+	private int depth;
+	private boolean backward;
+	private int from;
+	private int to;
+	
+	LevelTask(PatternSpace space, MyAtomicNibbleTable h, int depth,
+		  boolean backward, int from, int to) {
+	    this.space = space;
+	    this.h = h;
+	    this.depth = depth;
+	    this.backward = backward;
+	    this.from = from;
+	    this.to = to;
+	}
+	
+	protected Integer compute() {
+	    if (to - from > CHUNK_SIZE) {
+		int middle = from + (to - from) / 2;
+		LevelTask left = new LevelTask(space, h, depth, backward,
+					       from, middle);
+		left.fork();
+		int found = new LevelTask(space, h, depth, backward,
+					  middle, to).compute();
+		return found + left.join();
+	    }
+	    int found = 0;
+	    for (int index = from; index < to; index++) {
+		if (backward) {
+		    if (h.get(index) != MyAtomicNibbleTable.EMPTY)
+			continue;
+		    for (int move = 0; move < Moves.NUM_MOVES; move++) {
+			if (h.get(space.move(index, move)) == depth) {
+			    // no other thread writes this entry
+			    h.putIfEmpty(index, depth + 1);
+			    found++;
+			    break;
+			}
+		    }
+		} else {
+		    if (h.get(index) != depth)
+			continue;
+		    for (int move = 0; move < Moves.NUM_MOVES; move++)
+			if (h.putIfEmpty(space.move(index, move), depth + 1))
+			    found++;
+		}
+	    }
+	    return found;
+	}
+    }
+	
+    // Returns the table of distances of the states of the space, generated
+    // with byLevels, on the threads of a common pool if this machine has more
+    // than one core
+    public static MyNibbleTable generate(PatternSpace space) {
+	return generate(space, null);
+    }
+	
+    // Returns the table of distances of the states of the space, generated as
+    // by generate(PatternSpace), saving (and resuming from) the specified
+    // checkpoint unless it is null
+    public static MyNibbleTable generate(PatternSpace space,
+					 PatternCheckpoint checkpoint) {
+	if (Runtime.getRuntime().availableProcessors() > 1)
+	    return byLevels(space, ForkJoinPool.commonPool(), checkpoint);
+	return byLevels(space, checkpoint);
+    }
+	
+    // Returns the table of distances of the states of the space, generated by
+    // a breadth-first search with a queue
+    public static MyNibbleTable byQueue(PatternSpace space) {
+	int size = space.size();
+	MyNibbleTable h = new MyNibbleTable(size);
+	// Queue for the breadth-first search, holding indices with the move
+	// each state was reached by (plus one, so the goal state holds 0 =
+	// Moves.NONE) in the upper 32 bits
+	MyQueue q = new MyArrayQueue(size);
+	// the states that have been discovered, one bit each
+	MyBitSet d = new MyBitSet(size);
+	int start = space.goal();
+	q.add(start);
+	h.put(start, 0);
+	d.add(start);
+	int states = 0;
+	long rotations = 0;
+	while (!q.isEmpty()) {
+	    long entry = q.remove();
+	    int index = (int)entry;
+	    int successors = Moves.successors((int)(entry >>> 32) - 1);
+	    int moves = h.get(index);
+	    // determine all its neighbors; queue if undiscovered
+	    for (int move = 0; move < Moves.NUM_MOVES; move++) {
+		if ((successors & (1 << move)) == 0)
+		    continue;
+		int next = space.move(index, move);
+		rotations++;
+		if (!d.contains(next)) {
+		    q.add(next | (long)(move + 1) << 32);
+		    d.add(next);
+		    h.put(next, moves + 1);
+		}
+	    }
+	    states++;
+	}
+	System.out.println("States discovered: " + states);
+	System.out.println("Rotations performed: " + rotations);
+	return h;
+    }
+	
+    // Returns the table of distances of the states of the space, generated
+    // one distance at a time in the table itself
+    public static MyNibbleTable byLevels(PatternSpace space) {
+	return byLevels(space, (PatternCheckpoint)null);
+    }
+	
+    // Returns the table of distances of the states of the space, generated
+    // as by byLevels(PatternSpace), saving (and resuming from) the specified
+    // checkpoint unless it is null
+    public static MyNibbleTable byLevels(PatternSpace space,
+					 PatternCheckpoint checkpoint) {
+	int size = space.size();
+	MyNibbleTable h = checkpoint != null ? checkpoint.load(size) : null;
+	int depth = 0;
+	// number of states at distance depth, and not yet visited
+	int frontier = 1;
+	int unvisited = size - 1;
+	if (h != null) {
+	    depth = checkpoint.getDistance();
+	    frontier = (int)checkpoint.getStates();
+	    unvisited = (int)checkpoint.getUnvisited();
+	} else {
+	    h = new MyNibbleTable(size);
+	    h.put(space.goal(), 0);
+	}
+	int states = size - unvisited;
+	long rotations = 0;
+	for (; frontier > 0; depth++) {
+	    boolean backward = unvisited < frontier;
+	    int found = 0;
+	    for (int index = 0; index < size; index++) {
+		if (backward) {
+		    if (h.get(index) != MyNibbleTable.EMPTY)
+			continue;
+		    for (int move = 0; move < Moves.NUM_MOVES; move++) {
+			rotations++;
+			if (h.get(space.move(index, move)) == depth) {
+			    h.put(index, depth + 1);
+			    found++;
+			    break;
+			}
+		    }
+		} else {
+		    if (h.get(index) != depth)
+			continue;
+		    for (int move = 0; move < Moves.NUM_MOVES; move++) {
+			int next = space.move(index, move);
+			rotations++;
+			if (h.get(next) == MyNibbleTable.EMPTY) {
+			    h.put(next, depth + 1);
+			    found++;
+			}
+		    }
+		}
+	    }
+	    System.out.println("Distance " + (depth + 1) + ": " + found
+			       + (backward ? " states (backward)" : " states"));
+	    states += found;
+	    unvisited -= found;
+	    frontier = found;
+	    if (checkpoint != null && found > 0)
+		checkpoint.save(h, depth + 1, found);
+	}
+	System.out.println("States discovered: " + states);
+	System.out.println("Rotations performed: " + rotations);
+	return h;
+    }
+	
+    // Returns the table of distances of the states of the space, generated as
+    // by byLevels(PatternSpace) on the threads of pool
+    public static MyNibbleTable byLevels(PatternSpace space, ForkJoinPool pool) {
+	return byLevels(space, pool, null);
+    }
+	
+    // Returns the table of distances of the states of the space, generated as
+    // by byLevels(PatternSpace, PatternCheckpoint) on the threads of pool
+    public static MyNibbleTable byLevels(PatternSpace space, ForkJoinPool pool,
+					 PatternCheckpoint checkpoint) {
+	int size = space.size();
+	MyNibbleTable saved = checkpoint != null ? checkpoint.load(size) : null;
+	MyAtomicNibbleTable h;
+	int depth = 0;
+	int frontier = 1;
+	int unvisited = size - 1;
+	if (saved != null) {
+	    h = new MyAtomicNibbleTable(saved);
+	    depth = checkpoint.getDistance();
+	    frontier = (int)checkpoint.getStates();
+	    unvisited = (int)checkpoint.getUnvisited();
+	} else {
+	    h = new MyAtomicNibbleTable(size);
+	    h.putIfEmpty(space.goal(), 0);
+	}
+	int states = size - unvisited;
+	for (; frontier > 0; depth++) {
+	    boolean backward = unvisited < frontier;
+	    int found = pool.invoke(new LevelTask(space, h, depth, backward,
+						  0, size));
+	    System.out.println("Distance " + (depth + 1) + ": " + found
+			       + (backward ? " states (backward)" : " states"));
+	    states += found;
+	    unvisited -= found;
+	    frontier = found;
+	    if (checkpoint != null && found > 0)
+		checkpoint.save(h.toNibbleTable(), depth + 1, found);
+	}
+	System.out.println("States discovered: " + states);
+	return h.toNibbleTable();
+    }
+}
@@ -0,0 +1,18 @@
+package heuristics;
+
+// The state space of a pattern database: the states of some of the cubies,
+// numbered 0 to size() - 1 by a perfect hash (e.g. CornerIndexer or
+// EdgeIndexer).  PatternGenerator fills a table of the distance of every
+// state from the goal through this interface, without knowing how the states
+// are encoded.
+public interface PatternSpace {
+    // returns the number of states
+    int size();
+	
+    // returns the index of the goal (solved) state
+    int goal();
+	
+    // returns the index of the state the specified move (see rotations.Moves)
+    // leads to from the state with the specified index
+    int move(int index, int move);
+}
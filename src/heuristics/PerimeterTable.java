@@ -0,0 +1,178 @@
+package heuristics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import rotations.*;
+
+// class PerimeterTable holds every whole cube (corner cube and edge cube)
+// within a few moves of the goal, with its distance to the goal and the first
+// move of a shortest path there.  An IDA* search that reaches the perimeter
+// can stop, and finish the solution from the table, instead of walking the
+// last few plies down to the goal, where the heuristic is weakest (see
+// search.CubeSolver.setPerimeter).
+//
+// The table is an open-addressing hash table in a ByteBuffer, 16 bytes a
+// slot, so it can be kept off the heap and mapped straight from a file (see
+// HeuristicFile.loadPerimeter):
+//
+//   bytes 0-7:   the corner cube, with the entry plus one in bits 40-55
+//                (0 marks an empty slot)
+//   bytes 8-15:  the edge cube
+//
+// The entry is the distance to the goal times 32, plus the move.  With a
+// radius of 5 there are 621649 cubes, in 16 MB
+public class PerimeterTable {
+    // radius of the table the solver uses
+    public static final int DEFAULT_RADIUS = 5;
+	
+    // the largest radius supported (a radius of 7 needs over 4 GB)
+    public static final int MAX_RADIUS = 6;
+	
+    // the move stored for the goal itself
+    public static final int NO_MOVE = 31;
+	
+    // bytes per slot
+    public static final int SLOT_SIZE = 16;
+	
+    // the table is kept at most this full
+    private static final double MAX_LOAD = 0.6;
+	
+    // number of cubes at each distance from the goal (counting every
+    // quarter and half turn as one move)
+    private static final int[] cubesAtDistance =
+    {1, 18, 243, 3240, 43239, 574908, 7618438};
+	
+    private static final int numMoves = Moves.NUM_MOVES;
+	
+    private final ByteBuffer table;
+    private final int radius;
+	
+    // number of bits of the hash used as the slot index
+    private final int bits;
+	
+    // Generates the table of every cube within radius moves of the goal,
+    // off the heap
+    public PerimeterTable(int radius) {
+	this(ByteBuffer.allocateDirect(numSlots(radius) * SLOT_SIZE), radius);
+	System.out.println("Generating perimeter table of radius " + radius
+			   + "...");
+	long[] corners = {CornerCubeMoves.GOAL};
+	long[] edges = {EdgeCubeMoves.GOAL};
+	put(CornerCubeMoves.GOAL, EdgeCubeMoves.GOAL, 0, NO_MOVE);
+	int count = 1;
+	for (int distance = 1; distance <= radius; distance++) {
+	    long[] nextCorners = new long[count * numMoves];
+	    long[] nextEdges = new long[count * numMoves];
+	    int nextCount = 0;
+	    for (int i = 0; i < count; i++)
+		for (int move = 0; move < numMoves; move++) {
+		    long corner = CornerCubeMoves.rotate(corners[i], move);
+		    long edge = EdgeCubeMoves.rotate(edges[i], move);
+		    // the cube is a move from one a distance closer, and the
+		    // inverse move goes back there
+		    if (put(corner, edge, distance, Moves.inverse(move))) {
+			nextCorners[nextCount] = corner;
+			nextEdges[nextCount++] = edge;
+		    }
+		}
+	    System.out.println("Distance " + distance + ": " + nextCount
+			       + " cubes");
+	    corners = nextCorners;
+	    edges = nextEdges;
+	    count = nextCount;
+	}
+    }
+	
+    // Wraps a table of the specified radius that was generated before (e.g.
+    // mapped from a file)
+    public PerimeterTable(ByteBuffer table, int radius) {
+	if (radius < 0 || radius > MAX_RADIUS)
+	    throw new IllegalArgumentException("Invalid radius: " + radius);
+	if (table.capacity() != numSlots(radius) * SLOT_SIZE)
+	    throw new IllegalArgumentException("Wrong table size for radius "
+					       + radius);
+	this.table = table.order(ByteOrder.LITTLE_ENDIAN);
+	this.radius = radius;
+	this.bits = Integer.numberOfTrailingZeros(numSlots(radius));
+    }
+	
+    // returns the ID a table of the specified radius is saved with
+    public static long tableId(int radius) {
+	return 0x5045524D00L | radius; // "PERM" and the radius
+    }
+	
+    // returns the number of moves within which the table holds every cube
+    public int getRadius() {
+	return radius;
+    }
+	
+    // returns the buffer holding the table
+    public ByteBuffer getTable() {
+	return table;
+    }
+	
+    // Returns the entry of the cube (see distance and move), or -1 if the
+    // cube is more than the radius from the goal
+    public int get(long cornerCube, long edgeCube) {
+	int mask = (1 << bits) - 1;
+	for (int slot = slot(cornerCube, edgeCube); ;
+	     slot = (slot + 1) & mask) {
+	    long first = table.getLong(slot * SLOT_SIZE);
+	    if (first == 0)
+		return -1;
+	    if ((first & 0xFFFFFFFFFFL) == cornerCube
+		&& table.getLong(slot * SLOT_SIZE + 8) == edgeCube)
+		return (int)(first >>> 40) - 1;
+	}
+    }
+	
+    // returns the distance to the goal of the cube with the specified entry
+    public static int distance(int entry) {
+	return entry >>> 5;
+    }
+	
+    // Returns the first move of a shortest path to the goal from the cube
+    // with the specified entry (NO_MOVE for the goal)
+    public static int move(int entry) {
+	return entry & 0b11111;
+    }
+	
+    // returns the number of slots in a table of the specified radius
+    public static int numSlots(int radius) {
+	long cubes = 0;
+	for (int distance = 0; distance <= radius; distance++)
+	    cubes += cubesAtDistance[distance];
+	int slots = 1;
+	while (slots * MAX_LOAD < cubes)
+	    slots <<= 1;
+	return slots;
+    }
+	
+    // Adds the cube, unless it is in the table already.  Returns true if it
+    // was added
+    private boolean put(long cornerCube, long edgeCube, int distance,
+			int move) {
+	int mask = (1 << bits) - 1;
+	int slot = slot(cornerCube, edgeCube);
+	for (; table.getLong(slot * SLOT_SIZE) != 0; slot = (slot + 1) & mask)
+	    if ((table.getLong(slot * SLOT_SIZE) & 0xFFFFFFFFFFL) == cornerCube
+		&& table.getLong(slot * SLOT_SIZE + 8) == edgeCube)
+		return false;
+	long entry = distance << 5 | move;
+	table.putLong(slot * SLOT_SIZE, cornerCube | (entry + 1) << 40);
+	table.putLong(slot * SLOT_SIZE + 8, edgeCube);
+	return true;
+    }
+	
+    // Returns the slot the cube hashes to (as in structures.MyLongPairMap).
+    // The hash is part of the file format: a table saved with one hash can
+    // only be read with the same one
+    private int slot(long cornerCube, long edgeCube) {
+	long hash = cornerCube * 0x9E3779B97F4A7C15L
+	    + edgeCube * 0xC2B2AE3D27D4EB4FL;
+	hash ^= hash >>> 29;
+	hash *= 0xBF58476D1CE4E5B9L;
+	return (int)(hash >>> (64 - bits));
+    }
+}
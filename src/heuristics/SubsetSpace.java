@@ -0,0 +1,260 @@
+package heuristics;
+
+import java.util.Arrays;
+
+import rotations.*;
+
+// The states of any subset of the cubies: some of the corners and some of
+// the edges, each group with or without the orientations of its cubies.
+// Each group is ranked as EdgeIndexer ranks edges: the slots of its tracked
+// cubies (in order of cubie ID) as a partial permutation, times the number of
+// ways to orient them, plus their orientations read as a base 3 (corners) or
+// base 2 (edges) number, the first cubie most significant.  The index is the
+// rank of the corners times the number of edge states, plus the rank of the
+// edges.  A subset of edges with their flips is thus ranked just as
+// EdgeIndexer ranks it.
+//
+// The corners and the edges move independently of each other, so each group
+// is moved on its own: by a move table derived from CornerCubeMoves or
+// EdgeCubeMoves if the group has at most MAX_TABLE_STATES states, or else by
+// unranking it, rotating the cube and ranking the result, as EdgeSpace does.
+//
+// With every corner and its twist tracked, only a third of the indices are
+// legal states (the twists of a legal cube add up to a multiple of 3), and
+// with every edge and its flip, only half.  The others are never reached, and
+// their entries are left EMPTY.
+public class SubsetSpace implements PatternSpace {
+    // the largest group that gets a move table
+    public static final int MAX_TABLE_STATES = 1 << 20;
+	
+    // number of bits used by a single corner or edge slot
+    private static final int numBits = 5;
+	
+    private static final int numMoves = Moves.NUM_MOVES;
+	
+    // The tracked corners or edges, ranked as described above
+    private static class Group {
+	private boolean corners;
+	private int numSlots;
+	private int[] cubies;
+	private boolean oriented;
+	
+	// bits of a slot holding the orientation, and the number of values
+	// it can take
+	private int orientationBits;
+	private int orientationValues;
+	
+	// the position of each cubie ID in cubies, or -1 if it isn't tracked
+	private int[] subsetIndex = new int[16];
+	
+	// the slot value unrank writes to the slots of untracked cubies
+	private long filler;
+	
+	// number of ways to orient the tracked cubies, and number of states
+	private int numOrientations;
+	
+	// the place value of the orientation of each tracked cubie in the
+	// rank (all 0 if the group isn't oriented)
+	private int[] orientationWeights;
+	private int size;
+	
+	// The move table (the index after each move, indexed by index *
+	// NUM_MOVES + move), or null if the group is too big for one
+	private int[] moves;
+	
+	Group(boolean corners, int[] cubies, boolean oriented) {
+	    this.corners = corners;
+	    numSlots = corners ? 8 : 12;
+	    orientationBits = corners ? 2 : 1;
+	    orientationValues = corners ? 3 : 2;
+	    this.cubies = cubies.clone();
+	    Arrays.sort(this.cubies);
+	    this.oriented = oriented;
+	    Arrays.fill(subsetIndex, -1);
+	    long positions = 1;
+	    long orientations = 1;
+	    for (int i = 0; i < this.cubies.length; i++) {
+		int cubie = this.cubies[i];
+		if (cubie < 0 || cubie >= numSlots || subsetIndex[cubie] != -1)
+		    throw new IllegalArgumentException("Invalid "
+						       + (corners ? "corner"
+							  : "edge")
+						       + " subset");
+		subsetIndex[cubie] = i;
+		positions *= numSlots - i;
+		if (oriented)
+		    orientations *= orientationValues;
+	    }
+	    if (positions * orientations > Integer.MAX_VALUE)
+		throw new IllegalArgumentException("Too many states");
+	    numOrientations = (int)orientations;
+	    orientationWeights = new int[this.cubies.length];
+	    int weight = oriented ? 1 : 0;
+	    for (int j = this.cubies.length - 1; j >= 0; j--) {
+		orientationWeights[j] = weight;
+		weight *= orientationValues;
+	    }
+	    size = (int)(positions * orientations);
+	    // any cubie that isn't tracked will do
+	    int untracked = 0;
+	    while (untracked < numSlots - 1 && subsetIndex[untracked] != -1)
+		untracked++;
+	    filler = (long)untracked << orientationBits;
+	    if (size <= MAX_TABLE_STATES) {
+		moves = new int[size * numMoves];
+		for (int index = 0; index < size; index++) {
+		    long cube = unrank(index);
+		    for (int move = 0; move < numMoves; move++)
+			moves[index*numMoves + move] =
+			    rank(rotate(cube, move));
+		}
+	    }
+	}
+	
+	// returns the rank of the tracked cubies in the corner or edge cube
+	int rank(long cube) {
+	    int k = cubies.length;
+	    // the slot of the jth cubie is kept in bits 4j..4j+3 of slots
+	    // (as in EdgeIndexer.rank, so that nothing is allocated), and the
+	    // orientations are added up as they are found
+	    long slots = 0L;
+	    int orientation = 0;
+	    for (int i = 0; i < numSlots; i++) {
+		int slot = (int)(cube >>> numBits*i) & 0b11111;
+		int j = subsetIndex[slot >>> orientationBits];
+		if (j >= 0) {
+		    slots |= (long)i << 4*j;
+		    orientation += (slot & ((1 << orientationBits) - 1))
+			* orientationWeights[j];
+		}
+	    }
+	    int positions = 0;
+	    int used = 0; // bit i is set once slot i has been taken
+	    for (int j = 0; j < k; j++) {
+		int slot = (int)(slots >>> 4*j) & 0xF;
+		int smaller = slot - Integer.bitCount(used & ((1 << slot) - 1));
+		used |= 1 << slot;
+		positions = positions * (numSlots - j) + smaller;
+	    }
+	    return positions * numOrientations + orientation;
+	}
+	
+	// Returns a corner or edge cube with the tracked cubies in the state
+	// with the specified rank, and untracked cubies everywhere else
+	long unrank(int index) {
+	    int k = cubies.length;
+	    int positions = index / numOrientations;
+	    int orientation = index % numOrientations;
+	    int[] digits = new int[k];
+	    int[] orientations = new int[k];
+	    for (int j = k - 1; j >= 0; j--) {
+		digits[j] = positions % (numSlots - j);
+		positions /= numSlots - j;
+		if (oriented) {
+		    orientations[j] = orientation % orientationValues;
+		    orientation /= orientationValues;
+		}
+	    }
+	    long cube = 0L;
+	    for (int i = 0; i < numSlots; i++)
+		cube |= filler << numBits*i;
+	    int used = 0;
+	    for (int j = 0; j < k; j++) {
+		// the slot is the (digits[j])th smallest slot not yet taken
+		int slot = 0;
+		for (int skip = digits[j]; ; slot++) {
+		    if ((used & (1 << slot)) == 0) {
+			if (skip == 0)
+			    break;
+			skip--;
+		    }
+		}
+		used |= 1 << slot;
+		long value = (cubies[j] << orientationBits) | orientations[j];
+		cube = (cube & ~(0b11111L << numBits*slot))
+		    | (value << numBits*slot);
+	    }
+	    return cube;
+	}
+	
+	// returns the rank after the specified move
+	int move(int index, int move) {
+	    if (moves != null)
+		return moves[index*numMoves + move];
+	    return rank(rotate(unrank(index), move));
+	}
+	
+	// rotates a corner or edge cube, as this group holds
+	private long rotate(long cube, int move) {
+	    return corners ? CornerCubeMoves.rotate(cube, move)
+		: EdgeCubeMoves.rotate(cube, move);
+	}
+	
+	// e.g. "corners 0,1,2,3 with twist", or "no corners"
+	public String toString() {
+	    String name = corners ? "corners" : "edges";
+	    if (cubies.length == 0)
+		return "no " + name;
+	    StringBuilder text = new StringBuilder(name);
+	    for (int i = 0; i < cubies.length; i++)
+		text.append(i == 0 ? " " : ",").append(cubies[i]);
+	    if (oriented)
+		text.append(corners ? " with twist" : " with flip");
+	    return text.toString();
+	}
+    }
+	
+    private Group corners;
+    private Group edges;
+	
+    // Creates the space of the specified corner and edge cubies (see
+    // rotations.CornerCubeMoves and EdgeCubeMoves for their IDs), tracking
+    // the twist of the corners and the flip of the edges if specified.  The
+    // order the cubies are given in doesn't matter
+    public SubsetSpace(int[] corners, boolean twist, int[] edges,
+		       boolean flip) {
+	this.corners = new Group(true, corners, twist);
+	this.edges = new Group(false, edges, flip);
+	if ((long)this.corners.size * this.edges.size > Integer.MAX_VALUE)
+	    throw new IllegalArgumentException("Too many states");
+    }
+	
+    public int size() {
+	return corners.size * edges.size;
+    }
+	
+    public int goal() {
+	return rank(CornerCubeMoves.GOAL, EdgeCubeMoves.GOAL);
+    }
+	
+    public int move(int index, int move) {
+	return corners.move(index / edges.size, move) * edges.size
+	    + edges.move(index % edges.size, move);
+    }
+	
+    // returns the index of the state of the tracked cubies of the cube
+    public int rank(long cornerCube, long edgeCube) {
+	return corners.rank(cornerCube) * edges.size + edges.rank(edgeCube);
+    }
+	
+    // Returns the ID a table of this space is saved with: 0x5B ("subset")
+    // followed by a bit for the twist and one for the flip, then one bit per
+    // edge (edge 11 first) and one per corner (corner 7 first).  A subset of
+    // edges with their flips can also be saved with the ID
+    // EdgeHeuristic.tableId gives it, for the solver to load
+    public long tableId() {
+	long id = 0x5BL;
+	id = (id << 1) | (corners.oriented ? 1 : 0);
+	id = (id << 1) | (edges.oriented ? 1 : 0);
+	for (int edge = 11; edge >= 0; edge--)
+	    id = (id << 1) | (edges.subsetIndex[edge] >= 0 ? 1 : 0);
+	for (int corner = 7; corner >= 0; corner--)
+	    id = (id << 1) | (corners.subsetIndex[corner] >= 0 ? 1 : 0);
+	return id;
+    }
+	
+    // e.g. "corners 0,1,2,3 with twist, edges 1,3,5 with flip"
+    public String toString() {
+	return corners + ", " + edges;
+    }
+}
@@ -0,0 +1,28 @@
+package heuristics;
+
+import rotations.*;
+
+// Looks up another heuristic for the cube conjugated by a symmetry (see
+// rotations.Symmetries).  The conjugated cube is exactly as far from solved
+// as the original, so this is as admissible as the heuristic it wraps, but
+// it estimates a different thing: an EdgeHeuristic for some edge cubies,
+// looked up through a symmetry, becomes a heuristic for the edge cubies the
+// symmetry maps onto them.  This lets one table serve several subsets
+public class SymmetricHeuristic implements Heuristic {
+    private Heuristic heuristic;
+    private int symmetry;
+	
+    // Creates a heuristic that looks up the given heuristic for the cube
+    // conjugated by the given symmetry
+    public SymmetricHeuristic(Heuristic heuristic, int symmetry) {
+	if (symmetry < 0 || symmetry >= Symmetries.NUM_SYMMETRIES)
+	    throw new IllegalArgumentException("Invalid symmetry");
+	this.heuristic = heuristic;
+	this.symmetry = symmetry;
+    }
+	
+    public int estimate(long cornerCube, long edgeCube) {
+	return heuristic.estimate(Symmetries.conjugateCorners(cornerCube, symmetry),
+				  Symmetries.conjugateEdges(edgeCube, symmetry));
+    }
+}
@@ -83,6 +83,24 @@ public class CubeEntry {
 	sc = new Scanner(System.in);
     }
 	
+    // Creates a CubeEntry holding the specified cube state, for use without
+    // the console: the 54 sticker colors ('B', 'G', 'R', 'O', 'Y' or 'W') in
+    // the order of the array above.  The centers must be in place.  The
+    // prompting methods can't be used on such an entry
+    public CubeEntry(String facelets) {
+	if (facelets.length() != cube.length)
+	    throw new IllegalArgumentException("A cube must have 54 stickers");
+	facelets = facelets.toUpperCase();
+	for (int i = 0; i < cube.length; i++) {
+	    cube[i] = facelets.charAt(i);
+	    if ("BGROYW".indexOf(cube[i]) < 0)
+		throw new IllegalArgumentException("Invalid color: " + cube[i]);
+	}
+	if (cube[25] != 'O' || cube[28] != 'G' || cube[31] != 'R'
+	    || cube[22] != 'B' || cube[4] != 'W' || cube[49] != 'Y')
+	    throw new IllegalArgumentException("The centers are out of place");
+    }
+	
     public void enterCubeState() {
 	int i;     // counter to keep track of cubie entries
 	System.out.println("Orient the cube such that the ORANGE face points upwards.");
@@ -211,6 +229,68 @@ public class CubeEntry {
 	computeEdgeCube();
     }
 	
+    // Returns true if the compact cube can be reached from the solved cube:
+    // every cubie appears once, the corner twists add up to a multiple of 3,
+    // the edge flips add up to an even number, and the corner and edge
+    // permutations are both even or both odd.  The search would never finish
+    // on any other cube.  (WARNING: don't call before a call to
+    // createCompactCube has been made)
+    public boolean isCubeSolvable() {
+	return isSolvable(cornerCube, edgeCube);
+    }
+	
+    // Returns true if the corner and edge cubes make up a cube that can be
+    // reached from the solved cube, as described above
+    public static boolean isSolvable(long cornerCube, long edgeCube) {
+	// the slots above the last cubie must be empty
+	if ((cornerCube >>> 40) != 0 || (edgeCube >>> 60) != 0)
+	    return false;
+	int[] corners = new int[8];
+	int[] edges = new int[12];
+	int twist = 0;
+	int flip = 0;
+	for (int i = 0; i < 8; i++) {
+	    int slot = (int)(cornerCube >>> 5*i) & 0b11111;
+	    corners[i] = slot >>> 2;
+	    if ((slot & 0b11) == 3)
+		return false;
+	    twist += slot & 0b11;
+	}
+	for (int i = 0; i < 12; i++) {
+	    int slot = (int)(edgeCube >>> 5*i) & 0b11111;
+	    edges[i] = slot >>> 1;
+	    flip += slot & 1;
+	}
+	if (twist % 3 != 0 || flip % 2 != 0)
+	    return false;
+	int cornerParity = parity(corners);
+	int edgeParity = parity(edges);
+	return cornerParity >= 0 && cornerParity == edgeParity;
+    }
+	
+    // Returns the parity of the permutation (0 for even, 1 for odd), or -1 if
+    // the array isn't a permutation
+    private static int parity(int[] permutation) {
+	int[] p = permutation.clone();
+	int seen = 0;
+	for (int id : p) {
+	    if (id >= p.length || (seen & (1 << id)) != 0)
+		return -1;
+	    seen |= 1 << id;
+	}
+	// every swap that puts a cubie in place changes the parity
+	int parity = 0;
+	for (int i = 0; i < p.length; i++) {
+	    while (p[i] != i) {
+		int j = p[i];
+		p[i] = p[j];
+		p[j] = j;
+		parity ^= 1;
+	    }
+	}
+	return parity;
+    }
+	
     // returns the corner cube (WARNING: don't call before a call to
     // createCompactCube has been made)
     public long getCornerCube() {
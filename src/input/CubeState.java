@@ -0,0 +1,99 @@
+package input;
+
+import rotations.*;
+
+// class CubeState holds the state of a cube in the compact form used by the
+// search, for code that gets its cubes from somewhere other than the console.
+// A CubeState never changes once it is made.
+//
+// A cube can be given either as
+//
+//   facelets: the 54 sticker colors ('B', 'G', 'R', 'O', 'Y' or 'W'), in the
+//             order of the array in CubeEntry
+//   scramble: move names separated by spaces, as printed by the solver
+//             (e.g. "orange90CW white180 blue90CCW"), applied to the solved
+//             cube
+public class CubeState {
+    // the solved cube
+    public static final CubeState SOLVED =
+	new CubeState(CornerCubeMoves.GOAL, EdgeCubeMoves.GOAL);
+	
+    private final long cornerCube;
+    private final long edgeCube;
+	
+    // Creates a cube from its corner and edge cubes.  Throws an
+    // IllegalArgumentException if they don't make up a solvable cube (see
+    // CubeEntry.isSolvable), which no search could ever finish
+    public CubeState(long cornerCube, long edgeCube) {
+	if (!CubeEntry.isSolvable(cornerCube, edgeCube))
+	    throw new IllegalArgumentException("The cube can't be solved");
+	this.cornerCube = cornerCube;
+	this.edgeCube = edgeCube;
+    }
+	
+    // Returns the cube with the specified facelets.  Throws an
+    // IllegalArgumentException if they don't describe a solvable cube
+    public static CubeState fromFacelets(String facelets) {
+	CubeEntry entry = new CubeEntry(facelets);
+	entry.createCompactCube();
+	return new CubeState(entry.getCornerCube(), entry.getEdgeCube());
+    }
+	
+    // Returns the cube the specified scramble leads to from the solved cube.
+    // Throws an IllegalArgumentException on a move name it doesn't know
+    public static CubeState fromScramble(String scramble) {
+	CubeState cube = SOLVED;
+	scramble = scramble.trim();
+	if (scramble.isEmpty())
+	    return cube;
+	for (String name : scramble.split("\\s+")) {
+	    int move;
+	    try {
+		move = Moves.parse(name);
+	    } catch (IllegalArgumentException e) {
+		throw new IllegalArgumentException("Invalid move: " + name);
+	    }
+	    cube = cube.move(move);
+	}
+	return cube;
+    }
+	
+    // Returns the cube described by the string, which is read as facelets if
+    // it is 54 characters without a space, and as a scramble otherwise
+    public static CubeState parse(String cube) {
+	cube = cube.trim();
+	if (cube.length() == 54 && cube.indexOf(' ') < 0)
+	    return fromFacelets(cube);
+	return fromScramble(cube);
+    }
+	
+    // returns the cube after the specified move (a constant from Moves)
+    public CubeState move(int move) {
+	return new CubeState(CornerCubeMoves.rotate(cornerCube, move),
+			     EdgeCubeMoves.rotate(edgeCube, move));
+    }
+	
+    // returns whether the cube is solved
+    public boolean isSolved() {
+	return equals(SOLVED);
+    }
+	
+    public long getCornerCube() {
+	return cornerCube;
+    }
+	
+    public long getEdgeCube() {
+	return edgeCube;
+    }
+	
+    public boolean equals(Object other) {
+	if (!(other instanceof CubeState))
+	    return false;
+	CubeState cube = (CubeState)other;
+	return cornerCube == cube.cornerCube && edgeCube == cube.edgeCube;
+    }
+	
+    public int hashCode() {
+	return Long.hashCode(cornerCube * 31 + edgeCube);
+    }
+}
@@ -2,7 +2,8 @@ package rotations;
 
 // Class CubeMoves provides static methods to rotate corner cube faces
 // Each method takes a corner cube input, and returns a corner cube 
-// output.
+// output.  The methods work on local variables only, so they can be
+// called from any number of threads at once.
 public class CornerCubeMoves {
 	// Corner cube state representation:
 	// The state of the corner cube is abstractly stored as an 8-tuple where
@@ -60,6 +61,11 @@ public class CornerCubeMoves {
 	// state of the corner cube.
 	private static final int numBits = 5;
 	
+	// goal (solved) state of the corner cube: cubie i in slot i, with
+	// orientation 0.  Every other class refers to this one
+	public static final long GOAL =
+	    0b1110011000101001000001100010000010000000L;
+	
 	// bit masks used to retrieve the states of the fixed corners
 	private static final long corner0Mask = 0b11111L;
 	private static final long corner1Mask = corner0Mask << numBits;
@@ -110,9 +116,6 @@ public class CornerCubeMoves {
 	    corner0Mask | corner1Mask | corner2Mask | corner3Mask |
 	    moveCounterMask;
 	
-	// temporary storage for cube rotations
-	private static long temp;
-	
 	// prints the cube for debugging purposes
 	public static void printCornerCube(long cube) {
 		System.out.print("C0: ");
@@ -153,58 +156,42 @@ public class CornerCubeMoves {
 	// +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	
 	// Generic rotation method for the corner cube, which includes a move
-        // counter
-	public static long rotateWithCounter(long cube, String rotationType) {
-		if(rotationType.equals("orange90CW"))
-			return rotateOrange90CW(cube);
-		else if(rotationType.equals("orange90CCW"))
-			return rotateOrange90CCW(cube);
-		else if(rotationType.equals("orange180"))
-			return rotateOrange180(cube);
-		else if(rotationType.equals("red90CW"))
-			return rotateRed90CW(cube);
-		else if(rotationType.equals("red90CCW"))
-			return rotateRed90CCW(cube);
-		else if(rotationType.equals("red180"))
-			return rotateRed180(cube);
-		else if(rotationType.equals("green90CW"))
-			return rotateGreen90CW(cube);
-		else if(rotationType.equals("green90CCW"))
-			return rotateGreen90CCW(cube);
-		else if(rotationType.equals("green180"))
-			return rotateGreen180(cube);
-		else if(rotationType.equals("white90CW"))
-			return rotateWhite90CW(cube);
-		else if(rotationType.equals("white90CCW"))
-			return rotateWhite90CCW(cube);
-		else if(rotationType.equals("white180"))
-			return rotateWhite180(cube);
-		else if(rotationType.equals("blue90CW"))
-			return rotateBlue90CW(cube);
-		else if(rotationType.equals("blue90CCW"))
-			return rotateBlue90CCW(cube);
-		else if(rotationType.equals("blue180"))
-			return rotateBlue180(cube);
-		else if(rotationType.equals("yellow90CW"))
-			return rotateYellow90CW(cube);
-		else if(rotationType.equals("yellow90CCW"))
-			return rotateYellow90CCW(cube);
-		else if(rotationType.equals("yellow180"))
-			return rotateYellow180(cube);
-		else
+        // counter.  move is one of the constants in Moves
+	public static long rotateWithCounter(long cube, int move) {
+		switch (move) {
+		case Moves.ORANGE_90_CW:   return rotateOrange90CW(cube);
+		case Moves.ORANGE_90_CCW:  return rotateOrange90CCW(cube);
+		case Moves.ORANGE_180:     return rotateOrange180(cube);
+		case Moves.GREEN_90_CW:    return rotateGreen90CW(cube);
+		case Moves.GREEN_90_CCW:   return rotateGreen90CCW(cube);
+		case Moves.GREEN_180:      return rotateGreen180(cube);
+		case Moves.RED_90_CW:      return rotateRed90CW(cube);
+		case Moves.RED_90_CCW:     return rotateRed90CCW(cube);
+		case Moves.RED_180:        return rotateRed180(cube);
+		case Moves.BLUE_90_CW:     return rotateBlue90CW(cube);
+		case Moves.BLUE_90_CCW:    return rotateBlue90CCW(cube);
+		case Moves.BLUE_180:       return rotateBlue180(cube);
+		case Moves.WHITE_90_CW:    return rotateWhite90CW(cube);
+		case Moves.WHITE_90_CCW:   return rotateWhite90CCW(cube);
+		case Moves.WHITE_180:      return rotateWhite180(cube);
+		case Moves.YELLOW_90_CW:   return rotateYellow90CW(cube);
+		case Moves.YELLOW_90_CCW:  return rotateYellow90CCW(cube);
+		case Moves.YELLOW_180:     return rotateYellow180(cube);
+		default:
 			throw new IllegalArgumentException("Invalid rotation type");
+		}
 	}
 	
 	// rotate as rotateWithCounter method, but clear the counter as well
-	public static long rotate(long cube, String rotationType) {
-		long rotatedCube = rotateWithCounter(cube, rotationType);
+	public static long rotate(long cube, int move) {
+		long rotatedCube = rotateWithCounter(cube, move);
 		// clear the counter
 		return (rotatedCube & clearCounter);
 	}
 	
 	// ORANGE
 	public static long rotateOrange90CW(long cube) {
-		temp = cube;
+		long temp = cube;
 		// clear the bits to be changed
 		cube = cube & clearOrange;
 		// perform swaps; no need to change cubie orientations; this is
@@ -220,7 +207,7 @@ public class CornerCubeMoves {
 	}
 	
 	public static long rotateOrange90CCW(long cube) { // tested
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearOrange;
 		cube = cube | (corner1Mask & temp) >> numBits; // 0 <- 1
 		cube = cube | (corner3Mask & temp) >> 2*numBits; // 1 <- 3 
@@ -233,7 +220,7 @@ public class CornerCubeMoves {
 	}
 
 	public static long rotateOrange180(long cube) { // tested
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearOrange;
 		cube = cube | (corner3Mask & temp) >> 3*numBits; // 0 <- 3
 		cube = cube | (corner2Mask & temp) >> numBits; // 1 <- 2
@@ -247,7 +234,7 @@ public class CornerCubeMoves {
 	
 	// RED
 	public static long rotateRed90CW(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearRed;
 		cube = cube | (corner6Mask & temp) >> 2*numBits; // 4 <- 6
 		cube = cube | (corner4Mask & temp) << numBits; // 5 <- 4
@@ -259,7 +246,7 @@ public class CornerCubeMoves {
 	}
 	
 	public static long rotateRed90CCW(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearRed;
 		cube = cube | (corner5Mask & temp) >> numBits; // 4 <- 5
 		cube = cube | (corner7Mask & temp) >> 2*numBits; // 5 <- 7 
@@ -272,7 +259,7 @@ public class CornerCubeMoves {
 	}
 
 	public static long rotateRed180(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearRed;
 		cube = cube | (corner7Mask & temp) >> 3*numBits; // 4 <- 7
 		cube = cube | (corner6Mask & temp) >> numBits; // 5 <- 6
@@ -286,7 +273,7 @@ public class CornerCubeMoves {
 	
 	// GREEN
 	public static long rotateGreen90CW(long cube) { // tested
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearGreen;
 		cube = cube | (((corner3Mask & temp) >> 2*numBits) & cubieMask1); // 1 <- 3++
 		cube = cube | (((((corner3Mask & temp & orientMask3) >> 3*numBits) + 1) % 3) << numBits);
@@ -305,7 +292,7 @@ public class CornerCubeMoves {
 	}
 	
 	public static long rotateGreen90CCW(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearGreen;
 		cube = cube | (((corner4Mask & temp) >> 3*numBits) & cubieMask1); // 1 <- 4++
 		cube = cube | (((((corner4Mask & temp & orientMask4) >> 4*numBits) + 1) % 3) << numBits);
@@ -324,7 +311,7 @@ public class CornerCubeMoves {
 	}
 
 	public static long rotateGreen180(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearGreen;
 		cube = cube | (corner6Mask & temp) >> 5*numBits; // 1 <- 6
 		cube = cube | (corner4Mask & temp) >> numBits; // 3 <- 4
@@ -337,7 +324,7 @@ public class CornerCubeMoves {
 	
 	// WHITE
 	public static long rotateWhite90CW(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearWhite;
 		cube = cube | (((corner1Mask & temp) >> numBits) & cubieMask0); // 0 < 1++
 		cube = cube | (((((corner1Mask & temp & orientMask1) >> numBits) + 1) % 3));
@@ -356,7 +343,7 @@ public class CornerCubeMoves {
 	}
 	
 	public static long rotateWhite90CCW(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearWhite;
 		cube = cube | (((corner5Mask & temp) >> 5*numBits) & cubieMask0); // 0 <- 5++
 		cube = cube | (((((corner5Mask & temp & orientMask5) >> 5*numBits) + 1) % 3));
@@ -375,7 +362,7 @@ public class CornerCubeMoves {
 	}
 
 	public static long rotateWhite180(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearWhite;
 		cube = cube | (corner4Mask & temp) >> 4*numBits; // 0 <- 4
 		cube = cube | (corner5Mask & temp) >> 4*numBits; // 1 <- 5
@@ -388,7 +375,7 @@ public class CornerCubeMoves {
 
 	// BLUE
 	public static long rotateBlue90CW(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearBlue;
 		cube = cube | (((corner5Mask & temp) >> 5*numBits) & cubieMask0); // 0 <- 5--
 		cube = cube | (((((corner5Mask & temp & orientMask5) >> 5*numBits) + 2) % 3));
@@ -407,7 +394,7 @@ public class CornerCubeMoves {
 	}
 	
 	public static long rotateBlue90CCW(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearBlue;
 		cube = cube | (((corner2Mask & temp) >> 2*numBits) & cubieMask0); // 0 <- 2--
 		cube = cube | (((((corner2Mask & temp & orientMask2) >> 2*numBits) + 2) % 3));
@@ -426,7 +413,7 @@ public class CornerCubeMoves {
 	}
 
 	public static long rotateBlue180(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearBlue;
 		cube = cube | (corner7Mask & temp) >> 7*numBits; // 0 <- 7
 		cube = cube | (corner5Mask & temp) >> 3*numBits; // 2 <- 5
@@ -439,7 +426,7 @@ public class CornerCubeMoves {
 	
 	// YELLOW
 	public static long rotateYellow90CW(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearYellow;
 		cube = cube | (((corner7Mask & temp) >> 5*numBits) & cubieMask2); // 2 <- 7--
 		cube = cube | (((((corner7Mask & temp & orientMask7) >> 7*numBits) + 2) % 3) << 2*numBits);
@@ -458,7 +445,7 @@ public class CornerCubeMoves {
 	}
 	
 	public static long rotateYellow90CCW(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearYellow;
 		cube = cube | (((corner3Mask & temp) >> numBits) & cubieMask2); // 2 <- 3--
 		cube = cube | (((((corner3Mask & temp & orientMask3) >> 3*numBits) + 2) % 3) << 2*numBits);
@@ -477,7 +464,7 @@ public class CornerCubeMoves {
 	}
 
 	public static long rotateYellow180(long cube) {
-		temp = cube;
+		long temp = cube;
 		cube = cube & clearYellow;
 		cube = cube | (corner6Mask & temp) >> 4*numBits; // 2 <- 6
 		cube = cube | (corner7Mask & temp) >> 4*numBits; // 3 <- 7
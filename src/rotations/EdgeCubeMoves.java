@@ -1,7 +1,8 @@
 package rotations;
 
 // Similarly to class CornerCubeMoves, this class provides static
-// methods to rotate the edge cubies
+// methods to rotate the edge cubies.  They too work on local variables
+// only, and are safe to call from any number of threads at once.
 public class EdgeCubeMoves {
     //
     //  Edge cubie position encodings:
@@ -66,12 +67,14 @@ public class EdgeCubeMoves {
     //
     // END OF ENCODING EXPLANATION
     //
-    // Temp variable for use in rotations
-    private static long temp;
-	
     // Number of bits to store the cubie ID and orientation in one slot
     private static final int numBits = 5;
 	
+    // goal (solved) state of the edge cube: cubie i in slot i, with
+    // orientation 0.  Every other class refers to this one
+    public static final long GOAL =
+	0b101101010010010100000111001100010100100000110001000001000000L;
+	
     // Flips only the LSB when XOR'd with the target
     private static final long flip = 0b1L;
 	
@@ -143,51 +146,36 @@ public class EdgeCubeMoves {
     }
 	
     // Static rotation methods follow:
-    // Generic rotation method for the edge cube
-    public static long rotate(long cube, String rotationType) {
-	if(rotationType.equals("orange90CW"))
-	    return rotateOrange90CW(cube);
-	else if(rotationType.equals("orange90CCW"))
-	    return rotateOrange90CCW(cube);
-	else if(rotationType.equals("orange180"))
-	    return rotateOrange180(cube);
-	else if(rotationType.equals("red90CW"))
-	    return rotateRed90CW(cube);
-	else if(rotationType.equals("red90CCW"))
-	    return rotateRed90CCW(cube);
-	else if(rotationType.equals("red180"))
-	    return rotateRed180(cube);
-	else if(rotationType.equals("green90CW"))
-	    return rotateGreen90CW(cube);
-	else if(rotationType.equals("green90CCW"))
-	    return rotateGreen90CCW(cube);
-	else if(rotationType.equals("green180"))
-	    return rotateGreen180(cube);
-	else if(rotationType.equals("white90CW"))
-	    return rotateWhite90CW(cube);
-	else if(rotationType.equals("white90CCW"))
-	    return rotateWhite90CCW(cube);
-	else if(rotationType.equals("white180"))
-	    return rotateWhite180(cube);
-	else if(rotationType.equals("blue90CW"))
-	    return rotateBlue90CW(cube);
-	else if(rotationType.equals("blue90CCW"))
-	    return rotateBlue90CCW(cube);
-	else if(rotationType.equals("blue180"))
-	    return rotateBlue180(cube);
-	else if(rotationType.equals("yellow90CW"))
-	    return rotateYellow90CW(cube);
-	else if(rotationType.equals("yellow90CCW"))
-	    return rotateYellow90CCW(cube);
-	else if(rotationType.equals("yellow180"))
-	    return rotateYellow180(cube);
-	else
+    // Generic rotation method for the edge cube.  move is one of the
+    // constants in Moves
+    public static long rotate(long cube, int move) {
+	switch (move) {
+	case Moves.ORANGE_90_CW:   return rotateOrange90CW(cube);
+	case Moves.ORANGE_90_CCW:  return rotateOrange90CCW(cube);
+	case Moves.ORANGE_180:     return rotateOrange180(cube);
+	case Moves.GREEN_90_CW:    return rotateGreen90CW(cube);
+	case Moves.GREEN_90_CCW:   return rotateGreen90CCW(cube);
+	case Moves.GREEN_180:      return rotateGreen180(cube);
+	case Moves.RED_90_CW:      return rotateRed90CW(cube);
+	case Moves.RED_90_CCW:     return rotateRed90CCW(cube);
+	case Moves.RED_180:        return rotateRed180(cube);
+	case Moves.BLUE_90_CW:     return rotateBlue90CW(cube);
+	case Moves.BLUE_90_CCW:    return rotateBlue90CCW(cube);
+	case Moves.BLUE_180:       return rotateBlue180(cube);
+	case Moves.WHITE_90_CW:    return rotateWhite90CW(cube);
+	case Moves.WHITE_90_CCW:   return rotateWhite90CCW(cube);
+	case Moves.WHITE_180:      return rotateWhite180(cube);
+	case Moves.YELLOW_90_CW:   return rotateYellow90CW(cube);
+	case Moves.YELLOW_90_CCW:  return rotateYellow90CCW(cube);
+	case Moves.YELLOW_180:     return rotateYellow180(cube);
+	default:
 	    throw new IllegalArgumentException("Invalid rotation type");
+	}
     }
 	
     // WHITE
     public static long rotateWhite90CW(long cube) {
-	temp = cube;
+	long temp = cube;
 	// clear the positions that change
 	cube = cube & clearWhite;
 	// Orientations don't change, so just swap positions
@@ -199,7 +187,7 @@ public class EdgeCubeMoves {
     }
 	
     public static long rotateWhite90CCW(long cube) {
-	temp = cube;
+	long temp = cube;
 	// clear the positions that change
 	cube = cube & clearWhite;
 	// Orientations don't change, so just swap positions
@@ -216,7 +204,7 @@ public class EdgeCubeMoves {
 	
     // BLUE
     public static long rotateBlue90CW(long cube) {
-	temp = cube;
+	long temp = cube;
 	cube = cube & clearBlue;
 	cube = cube | (((corner4Mask & temp) >> 4*numBits) ^ flip) << numBits; // 1 <- 4 (flip)
 	cube = cube | ((corner8Mask & temp) >> 4*numBits);                     // 4 <- 8
@@ -226,7 +214,7 @@ public class EdgeCubeMoves {
     }
 	
     public static long rotateBlue90CCW(long cube) {
-	temp = cube;
+	long temp = cube;
 	cube = cube & clearBlue;
 	cube = cube | (((corner5Mask & temp) >> 5*numBits) ^ flip) << numBits; // 1 <- 5 (flip)
 	cube = cube | (((corner1Mask & temp) >> numBits) ^ flip) << 4*numBits; // 4 <- 1 (flip)
@@ -241,7 +229,7 @@ public class EdgeCubeMoves {
 	
     // ORANGE
     public static long rotateOrange90CW(long cube) {
-	temp = cube;
+	long temp = cube;
 	cube = cube & clearOrange;
 	cube = cube | ((corner5Mask & temp) >> 2*numBits); // 3 <- 5
 	cube = cube | (((corner9Mask & temp) >> 9*numBits) ^ flip) << 5*numBits; // 5 <- 9 (flip)
@@ -251,7 +239,7 @@ public class EdgeCubeMoves {
     }
 	
     public static long rotateOrange90CCW(long cube) {
-	temp = cube;
+	long temp = cube;
 	cube = cube & clearOrange;
 	cube = cube | (((corner6Mask & temp) >> 6*numBits) ^ flip) << 3*numBits; // 3 <- 6 (flip)
 	cube = cube | ((corner3Mask & temp) << 2*numBits); // 5 <- 3
@@ -266,7 +254,7 @@ public class EdgeCubeMoves {
 	
     // GREEN
     public static long rotateGreen90CW(long cube) {
-	temp = cube;
+	long temp = cube;
 	cube = cube & clearGreen;
 	cube = cube | ((corner6Mask & temp) >> 4*numBits); // 2 <- 6
 	cube = cube | (((corner10Mask & temp) >> 10*numBits) ^ flip) << 6*numBits; // 6 <- 10 (flip)
@@ -276,7 +264,7 @@ public class EdgeCubeMoves {
     }
 	
     public static long rotateGreen90CCW(long cube) {
-	temp = cube;
+	long temp = cube;
 	cube = cube & clearGreen;
 	cube = cube | (((corner7Mask & temp) >> 7*numBits) ^ flip) << 2*numBits; // 2 <- 7 (flip)
 	cube = cube | ((corner2Mask & temp) << 4*numBits); // 6 <- 2
@@ -291,7 +279,7 @@ public class EdgeCubeMoves {
 	
     // RED
     public static long rotateRed90CW(long cube) {
-	temp = cube;
+	long temp = cube;
 	cube = cube & clearRed;
 	cube = cube | ((corner7Mask & temp) >> 7*numBits); // 0 <- 7
 	cube = cube | ((corner0Mask & temp) << 4*numBits); // 4 <- 0
@@ -301,7 +289,7 @@ public class EdgeCubeMoves {
     }
 	
     public static long rotateRed90CCW(long cube) {
-	temp = cube;
+	long temp = cube;
 	cube = cube & clearRed;
 	cube = cube | ((corner4Mask & temp) >> 4*numBits); // 0 <- 4
 	cube = cube | (((corner11Mask & temp) >> 11*numBits) ^ flip) << 4*numBits; // 4 <- 11 (flip)
@@ -316,7 +304,7 @@ public class EdgeCubeMoves {
 	
     // YELLOW
     public static long rotateYellow90CW(long cube) {
-	temp = cube;
+	long temp = cube;
 	// clear the positions that change
 	cube = cube & clearYellow;
 	// Orientations don't change, so just swap positions
@@ -328,7 +316,7 @@ public class EdgeCubeMoves {
     }
 	
     public static long rotateYellow90CCW(long cube) {
-	temp = cube;
+	long temp = cube;
 	// clear the positions that change
 	cube = cube & clearYellow;
 	// Orientations don't change, so just swap positions
@@ -0,0 +1,112 @@
+package rotations;
+
+// Class Moves numbers the 18 face rotations, so that the search can pick a
+// rotation by indexing instead of comparing Strings.  The names are only
+// needed when a solution is printed.
+//
+// The moves of each face are consecutive (90 CW, 90 CCW, 180), so the face
+// turned by a move is move / 3.  The faces are ordered orange, green, red,
+// blue, white, yellow, which puts opposite faces two apart (for the first
+// four) or next to each other (white and yellow).
+public class Moves {
+    public static final int ORANGE_90_CW = 0;
+    public static final int ORANGE_90_CCW = 1;
+    public static final int ORANGE_180 = 2;
+    public static final int GREEN_90_CW = 3;
+    public static final int GREEN_90_CCW = 4;
+    public static final int GREEN_180 = 5;
+    public static final int RED_90_CW = 6;
+    public static final int RED_90_CCW = 7;
+    public static final int RED_180 = 8;
+    public static final int BLUE_90_CW = 9;
+    public static final int BLUE_90_CCW = 10;
+    public static final int BLUE_180 = 11;
+    public static final int WHITE_90_CW = 12;
+    public static final int WHITE_90_CCW = 13;
+    public static final int WHITE_180 = 14;
+    public static final int YELLOW_90_CW = 15;
+    public static final int YELLOW_90_CCW = 16;
+    public static final int YELLOW_180 = 17;
+	
+    // number of moves
+    public static final int NUM_MOVES = 18;
+	
+    // stands in for the previous move before any move has been made
+    public static final int NONE = -1;
+	
+    // bit mask with a bit set for every move
+    public static final int ALL_MOVES = (1 << NUM_MOVES) - 1;
+	
+    // successors[m + 1] is the bit mask of the moves worth making after move
+    // m (see successors(int))
+    private static final int[] successors = new int[NUM_MOVES + 1];
+	
+    static {
+	for (int last = NONE; last < NUM_MOVES; last++) {
+	    for (int move = 0; move < NUM_MOVES; move++) {
+		if (last != NONE) {
+		    // turning the same face twice in a row is the same as
+		    // turning it once (or not at all)
+		    if (face(move) == face(last))
+			continue;
+		    // opposite faces commute, so only try them in one order
+		    if (face(move) == oppositeFace(face(last))
+			&& face(move) < face(last))
+			continue;
+		}
+		successors[last + 1] |= 1 << move;
+	    }
+	}
+    }
+	
+    // names of the moves, in move order
+    private static final String[] names =
+    {"orange90CW", "orange90CCW", "orange180", "green90CW", "green90CCW",
+     "green180", "red90CW", "red90CCW", "red180", "blue90CW", "blue90CCW",
+     "blue180", "white90CW", "white90CCW", "white180", "yellow90CW",
+     "yellow90CCW", "yellow180"};
+	
+    // returns the name of the specified move, e.g. "orange90CW"
+    public static String toString(int move) {
+	return names[move];
+    }
+	
+    // returns the face turned by the specified move
+    public static int face(int move) {
+	return move / 3;
+    }
+	
+    // returns the move that undoes the specified move
+    public static int inverse(int move) {
+	switch (move % 3) {
+	case 0:
+	    return move + 1; // 90CW is undone by 90CCW
+	case 1:
+	    return move - 1;
+	default:
+	    return move; // 180 undoes itself
+	}
+    }
+	
+    // returns the face opposite the specified face
+    public static int oppositeFace(int face) {
+	return face < 4 ? face ^ 2 : face ^ 1;
+    }
+	
+    // Returns a bit mask of the moves that can follow the specified move (or
+    // NONE) in a shortest move sequence, with the bit for move m at 1 << m.
+    // The moves left out lead to cubes that a shorter or equally long
+    // sequence reaches anyway, so a search can skip them; this cuts the
+    // branching factor from 18 to about 13.35
+    public static int successors(int lastMove) {
+	return successors[lastMove + 1];
+    }
+	
+    // returns the move with the specified name
+    public static int parse(String name) {
+	for (int move = 0; move < NUM_MOVES; move++)
+	    if (names[move].equals(name))
+		return move;
+	throw new IllegalArgumentException("Invalid rotation type");
+    }
+}
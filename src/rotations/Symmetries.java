@@ -0,0 +1,238 @@
+package rotations;
+
+import java.util.Arrays;
+
+// The symmetries of the cube that keep the orange/red axis in place: the
+// rotations about that axis, the half turns that swap the orange and red
+// faces, and their mirror images, 16 in all.  These are the symmetries that
+// leave the orientation of a corner cubie (measured from its orange or red
+// color, see CornerCubeMoves) meaningful, so conjugating a corner cube by one
+// of them doesn't mix its twist with its permutation.
+//
+// Conjugating a cube by a symmetry S (turning the whole cube by S, applying
+// the cube's scramble, and turning the cube back) gives a cube that is
+// exactly as far from solved as the original, since S maps every move onto a
+// move: conjugate(X, s) followed by conjugateMove(m, s) is conjugate(X
+// followed by m, s).  Pattern databases use this to share one table between
+// symmetric cubes.
+//
+// The symmetries are numbered 0 to NUM_SYMMETRIES - 1, with 0 the identity.
+// All of the tables here are derived from the face each symmetry maps every
+// face to, and from the moves in CornerCubeMoves and EdgeCubeMoves.
+public class Symmetries {
+    // number of symmetries
+    public static final int NUM_SYMMETRIES = 16;
+	
+    // the faces, numbered as the moves are (face = move / 3)
+    private static final int ORANGE = 0, GREEN = 1, RED = 2, BLUE = 3,
+	WHITE = 4, YELLOW = 5;
+	
+    // The face that the edge orientation of each edge slot is measured from
+    // (see EdgeCubeMoves)
+    private static final int[] edgeOrientationFaces =
+    {WHITE, WHITE, WHITE, WHITE, BLUE, BLUE, ORANGE, GREEN, BLUE, ORANGE,
+     GREEN, RED};
+	
+    // faces[s][f] is the face symmetry s maps face f onto, and mirrors[s] is
+    // true if it is a reflection (which turns clockwise moves into
+    // counter-clockwise ones)
+    private static final int[][] faces = new int[NUM_SYMMETRIES][];
+    private static final boolean[] mirrors = new boolean[NUM_SYMMETRIES];
+	
+    // the symmetry that undoes each symmetry
+    private static final int[] inverses = new int[NUM_SYMMETRIES];
+	
+    // moves[s][m] is the move m is mapped onto by symmetry s
+    private static final int[][] moves = new int[NUM_SYMMETRIES][Moves.NUM_MOVES];
+	
+    // cornerSlots[s][i] and edgeSlots[s][i] are the slots symmetry s moves
+    // slot i to.  A cubie ID is the slot it belongs in, so these also map
+    // cubie IDs
+    private static final int[][] cornerSlots = new int[NUM_SYMMETRIES][8];
+    private static final int[][] edgeSlots = new int[NUM_SYMMETRIES][12];
+	
+    // edgeFlips[s][i] is 1 if symmetry s moves the facet of edge slot i that
+    // its orientation is measured from onto the other facet of its new slot
+    private static final int[][] edgeFlips = new int[NUM_SYMMETRIES][12];
+	
+    // number of bits used by a single corner or edge slot
+    private static final int numBits = 5;
+	
+    static {
+	// The group is generated by a quarter turn about the orange/red axis
+	// (seen from the orange face, white goes where green was), a half
+	// turn about the white/yellow axis, and the reflection that swaps the
+	// green and blue faces
+	int[][] generators = {
+	    {ORANGE, YELLOW, RED, WHITE, GREEN, BLUE},
+	    {RED, BLUE, ORANGE, GREEN, WHITE, YELLOW},
+	    {ORANGE, BLUE, RED, GREEN, WHITE, YELLOW}};
+	boolean[] generatorMirrors = {false, false, true};
+	faces[0] = new int[] {ORANGE, GREEN, RED, BLUE, WHITE, YELLOW};
+	int count = 1;
+	// close the set under composition with the generators
+	for (int s = 0; s < count; s++) {
+	    for (int g = 0; g < generators.length; g++) {
+		int[] product = new int[6];
+		for (int f = 0; f < 6; f++)
+		    product[f] = generators[g][faces[s][f]];
+		boolean mirror = mirrors[s] ^ generatorMirrors[g];
+		if (find(product, mirror, count) < 0) {
+		    faces[count] = product;
+		    mirrors[count] = mirror;
+		    count++;
+		}
+	    }
+	}
+	if (count != NUM_SYMMETRIES)
+	    throw new IllegalStateException("Found " + count + " symmetries");
+	int[] cornerSlotFaces = slotFaces(CornerCubeMoves.GOAL, true);
+	int[] edgeSlotFaces = slotFaces(EdgeCubeMoves.GOAL, false);
+	for (int s = 0; s < NUM_SYMMETRIES; s++) {
+	    int[] inverse = new int[6];
+	    for (int f = 0; f < 6; f++)
+		inverse[faces[s][f]] = f;
+	    inverses[s] = find(inverse, mirrors[s], NUM_SYMMETRIES);
+	    for (int move = 0; move < Moves.NUM_MOVES; move++) {
+		int type = move % 3;
+		// a reflection swaps clockwise (0) and counter-clockwise (1)
+		if (mirrors[s] && type < 2)
+		    type ^= 1;
+		moves[s][move] = faces[s][move / 3] * 3 + type;
+	    }
+	    // a slot goes to the slot on the faces its own faces go to
+	    for (int i = 0; i < 8; i++)
+		cornerSlots[s][i] = slotOn(cornerSlotFaces,
+					   mapFaces(cornerSlotFaces[i], s));
+	    for (int i = 0; i < 12; i++) {
+		edgeSlots[s][i] = slotOn(edgeSlotFaces,
+					 mapFaces(edgeSlotFaces[i], s));
+		int face = faces[s][edgeOrientationFaces[i]];
+		edgeFlips[s][i] =
+		    face == edgeOrientationFaces[edgeSlots[s][i]] ? 0 : 1;
+	    }
+	}
+    }
+	
+    // Returns the corner cube conjugated by the specified symmetry
+    public static long conjugateCorners(long cube, int sym) {
+	int[] slots = cornerSlots[sym];
+	long result = 0L;
+	for (int i = 0; i < 8; i++) {
+	    int slot = (int)(cube >>> numBits*i) & 0b11111;
+	    int orientation = slot & 0b11;
+	    // a reflection reverses the direction of every twist
+	    if (mirrors[sym] && orientation != 0)
+		orientation = 3 - orientation;
+	    result |= (long)((slots[slot >>> 2] << 2) | orientation)
+		<< numBits*slots[i];
+	}
+	return result;
+    }
+	
+    // Returns the edge cube conjugated by the specified symmetry
+    public static long conjugateEdges(long cube, int sym) {
+	int[] slots = edgeSlots[sym];
+	int[] flips = edgeFlips[sym];
+	long result = 0L;
+	for (int i = 0; i < 12; i++) {
+	    int slot = (int)(cube >>> numBits*i) & 0b11111;
+	    int cubie = slot >>> 1;
+	    // the cubie's own colors move the same way its home slot's do
+	    int flip = (slot & 1) ^ flips[i] ^ flips[cubie];
+	    result |= (long)((slots[cubie] << 1) | flip) << numBits*slots[i];
+	}
+	return result;
+    }
+	
+    // returns the move the specified move is mapped onto by the symmetry
+    public static int conjugateMove(int move, int sym) {
+	return moves[sym][move];
+    }
+	
+    // returns the symmetry that undoes the specified symmetry
+    public static int inverse(int sym) {
+	return inverses[sym];
+    }
+	
+    // Returns the symmetry whose conjugation moves the edge cubies in from
+    // onto the cubies in to (in any order), or -1 if there is none
+    public static int mapping(int[] from, int[] to) {
+	for (int s = 0; s < NUM_SYMMETRIES; s++) {
+	    int mapped = 0;
+	    int target = 0;
+	    for (int edge : from)
+		mapped |= 1 << edgeSlots[s][edge];
+	    for (int edge : to)
+		target |= 1 << edge;
+	    if (mapped == target && from.length == to.length)
+		return s;
+	}
+	return -1;
+    }
+	
+    // Returns the inverse of the corner cube: the cube that the moves which
+    // solve the given cube lead to from the goal
+    public static long invertCorners(long cube) {
+	long result = 0L;
+	for (int i = 0; i < 8; i++) {
+	    int slot = (int)(cube >>> numBits*i) & 0b11111;
+	    int orientation = slot & 0b11;
+	    if (orientation != 0)
+		orientation = 3 - orientation;
+	    result |= (long)((i << 2) | orientation) << numBits*(slot >>> 2);
+	}
+	return result;
+    }
+	
+    // returns the inverse of the edge cube (see invertCorners)
+    public static long invertEdges(long cube) {
+	long result = 0L;
+	for (int i = 0; i < 12; i++) {
+	    int slot = (int)(cube >>> numBits*i) & 0b11111;
+	    result |= (long)((i << 1) | (slot & 1)) << numBits*(slot >>> 1);
+	}
+	return result;
+    }
+	
+    // returns the index of the symmetry with the given faces among the first
+    // count symmetries, or -1 if there is none
+    private static int find(int[] map, boolean mirror, int count) {
+	for (int s = 0; s < count; s++)
+	    if (mirrors[s] == mirror && Arrays.equals(faces[s], map))
+		return s;
+	return -1;
+    }
+	
+    // Returns, for every slot of the corner or edge cube, a bit mask of the
+    // faces it lies on: the faces whose quarter turn moves the cubie in it
+    private static int[] slotFaces(long goal, boolean corners) {
+	int numSlots = corners ? 8 : 12;
+	int[] masks = new int[numSlots];
+	for (int face = 0; face < 6; face++) {
+	    long cube = corners ? CornerCubeMoves.rotate(goal, face * 3)
+		: EdgeCubeMoves.rotate(goal, face * 3);
+	    for (int i = 0; i < numSlots; i++)
+		if (((cube ^ goal) >>> numBits*i & 0b11111) != 0)
+		    masks[i] |= 1 << face;
+	}
+	return masks;
+    }
+	
+    // returns the bit mask of the faces the symmetry maps the given faces to
+    private static int mapFaces(int mask, int sym) {
+	int mapped = 0;
+	for (int f = 0; f < 6; f++)
+	    if ((mask & (1 << f)) != 0)
+		mapped |= 1 << faces[sym][f];
+	return mapped;
+    }
+	
+    // returns the slot that lies on exactly the given faces
+    private static int slotOn(int[] slotFaces, int mask) {
+	for (int i = 0; i < slotFaces.length; i++)
+	    if (slotFaces[i] == mask)
+		return i;
+	throw new IllegalStateException("No slot on faces " + mask);
+    }
+}
@@ -0,0 +1,124 @@
+package search;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import input.*;
+
+// class BatchSolver solves a whole file of cubes without the console, so that
+// many cubes can share one loaded heuristic.
+//
+// Every line of the input holds one cube, either as
+//
+//   facelets: the 54 sticker colors, in the order described in
+//             input.CubeEntry (e.g. "WWWWWWWWWBBBOOOGGGRRR...")
+//   scramble: move names separated by spaces, as printed by the solver
+//             (e.g. "orange90CW white180 blue90CCW"), applied to the solved
+//             cube
+//
+// Blank lines and lines starting with '#' are skipped.  Each worker thread
+// takes the next line, solves it with IDA* on its own, and writes one JSON
+// object on a line of the output as soon as it is done, so the results come
+// out in the order they finish.  The line number of the cube in the input is
+// part of every result:
+//
+//   {"line":3,"cube":"...","solution":"...","length":12,"nodes":190482,"millis":415}
+//   {"line":4,"cube":"...","error":"..."}
+public class BatchSolver {
+    private CubeSolver solver;
+    private SolveLimits limits;
+    private BufferedReader in;
+    private Writer out;
+	
+    // number of the last line read from the input
+    private int lineNumber;
+	
+    // number of cubes solved
+    private int numSolved;
+	
+    private BatchSolver(CubeSolver solver, SolveLimits limits,
+			BufferedReader in, Writer out) {
+	this.solver = solver;
+	this.limits = limits;
+	this.in = in;
+	this.out = out;
+    }
+	
+    // Solves every cube read from in with the solver, within the limits, on
+    // the specified number of threads, writing the results to out.  Returns
+    // the number of cubes solved; the lines that couldn't be solved are
+    // reported in out
+    public static int solve(BufferedReader in, Writer out, CubeSolver solver,
+			    SolveLimits limits, int threads) throws IOException {
+	final BatchSolver batch = new BatchSolver(solver, limits, in, out);
+	ExecutorService pool = Executors.newFixedThreadPool(threads);
+	List<Future<?>> workers = new ArrayList<Future<?>>();
+	for (int i = 0; i < threads; i++)
+	    workers.add(pool.submit(new Runnable() {
+		    public void run() {
+			try {
+			    batch.work();
+			} catch (IOException e) {
+			    throw new RuntimeException(e);
+			}
+		    }
+		}));
+	pool.shutdown();
+	try {
+	    for (Future<?> worker : workers)
+		worker.get();
+	} catch (InterruptedException e) {
+	    pool.shutdownNow();
+	    Thread.currentThread().interrupt();
+	    throw new IOException("Interrupted", e);
+	} catch (ExecutionException e) {
+	    pool.shutdownNow();
+	    if (e.getCause().getCause() instanceof IOException)
+		throw (IOException)e.getCause().getCause();
+	    throw new RuntimeException(e.getCause());
+	}
+	return batch.numSolved;
+    }
+	
+    // Solves lines from the input until there are none left
+    private void work() throws IOException {
+	int number;
+	String line;
+	while (true) {
+	    synchronized (in) {
+		line = in.readLine();
+		number = ++lineNumber;
+	    }
+	    if (line == null)
+		return;
+	    line = line.trim();
+	    if (line.isEmpty() || line.startsWith("#"))
+		continue;
+	    String result = "{\"line\":" + number + ",\"cube\":"
+		+ SolveResult.quote(line) + ",";
+	    boolean solved = false;
+	    try {
+		SolveResult solution = solver.solve(CubeState.parse(line), limits);
+		// the result's own fields follow the line and the cube
+		result += solution.toJson().substring(1);
+		solved = solution.isSolved();
+	    } catch (IllegalArgumentException e) {
+		result += "\"error\":" + SolveResult.quote(e.getMessage()) + "}";
+	    }
+	    synchronized (out) {
+		if (solved)
+		    numSolved++;
+		out.write(result);
+		out.write('\n');
+		out.flush();
+	    }
+	}
+    }
+}
@@ -0,0 +1,399 @@
+package search;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import heuristics.*;
+import input.*;
+import rotations.*;
+import structures.*;
+
+// class CubeSolver is the entry point for programs that solve cubes in
+// process: it is built once around a heuristic (see
+// heuristics.HeuristicLoader), and every solve reuses the same tables.
+//
+// A CubeSolver can be used from any number of threads at once.  The
+// heuristic tables are only ever read, and every solve runs its own IDAStar
+// search on the calling thread (solve) or on a thread of the solver's pool
+// (solveAsync).  The pool is only started by the first solveAsync that needs
+// it; call close when done with the solver, to stop the pool's threads.
+// A solver that solves one cube at a time can instead spread each search
+// over the threads of a ForkJoinPool (see setSearchPool).
+//
+// Every SolveResult carries the SearchMetrics of its search, and the solver
+// adds them up in a SolverStats, which registerMBean publishes over JMX.
+public class CubeSolver implements AutoCloseable {
+    // The largest estimate for which the meet-in-the-middle search is tried.
+    // Above it, the heuristic prunes so well that IDA* is the faster of the two
+    public static final int MEET_IN_THE_MIDDLE_ESTIMATE = 5;
+	
+    private final Heuristic heuristic;
+	
+    // the counters of every solve so far
+    private final SolverStats stats = new SolverStats();
+	
+    // Whether cubes the heuristic puts at most MEET_IN_THE_MIDDLE_ESTIMATE
+    // moves from the goal are first searched by a MeetInTheMiddle, which
+    // solves them several times faster than IDA*.  It is only tried if
+    // the solver has no perimeter table, since IDA* then ends at that same
+    // table, in no more nodes
+    private volatile boolean meetInTheMiddle = true;
+	
+    // the table of cubes near the goal the searches stop at (see
+    // IDAStar), or null to search to the goal
+    private volatile PerimeterTable perimeter;
+	
+    // The number of threads of the pool that runs the solves started by
+    // solveAsync, and the pool, once one has started (guarded by this)
+    private final int threads;
+    private ExecutorService pool;
+	
+    // set once close has been called (guarded by this)
+    private boolean closed;
+	
+    // the pool each search is spread over (see ParallelIDAStar), or null to
+    // search on the thread of the solve
+    private volatile ForkJoinPool searchPool;
+	
+    // where each iteration of a search is reported, or null for nowhere
+    private volatile PrintStream log;
+	
+    // Creates a solver using the specified heuristic, which runs up to
+    // threads solves started by solveAsync at once
+    public CubeSolver(Heuristic heuristic, int threads) {
+	if (threads < 1)
+	    throw new IllegalArgumentException("A solver needs at least one thread");
+	this.heuristic = heuristic;
+	this.threads = threads;
+    }
+	
+    // Creates a solver using the specified heuristic, with one thread per
+    // core for solveAsync
+    public CubeSolver(Heuristic heuristic) {
+	this(heuristic, Runtime.getRuntime().availableProcessors());
+    }
+	
+    // returns the heuristic the solver uses
+    public Heuristic getHeuristic() {
+	return heuristic;
+    }
+	
+    // Turns the meet-in-the-middle search of shallow cubes on or off.  It is
+    // on by default, but only runs while the solver has no perimeter table;
+    // the first search builds its own table of the cubes near the goal
+    // (16 MB)
+    public void setMeetInTheMiddle(boolean enabled) {
+	meetInTheMiddle = enabled;
+    }
+	
+    // Makes the searches started from now on stop at the perimeter table
+    // (see heuristics.PerimeterTable and IDAStar), or search all the way to
+    // the goal if perimeter is null (the default)
+    public void setPerimeter(PerimeterTable perimeter) {
+	this.perimeter = perimeter;
+    }
+	
+    // Spreads each iteration of the searches started from now on over the
+    // threads of the pool (see ParallelIDAStar), or searches on the thread
+    // of the solve if pool is null (the default).  The limits of a solve
+    // cover all of the pool's threads
+    public void setSearchPool(ForkJoinPool pool) {
+	searchPool = pool;
+    }
+	
+    // Sets where the searches started from now on report each iteration: its
+    // cost limit as it starts, and the nodes expanded and the time taken as
+    // it ends.  null (the default) reports nothing
+    public void setLog(PrintStream out) {
+	log = out;
+    }
+	
+    // returns the counters of every solve so far
+    public SolverStats getStats() {
+	return stats;
+    }
+	
+    // Registers the solver's counters with the platform MBean server under
+    // the specified name (e.g. "rubiks:type=CubeSolver"), for JMX clients
+    public void registerMBean(String name) throws JMException {
+	ManagementFactory.getPlatformMBeanServer().registerMBean(
+	    stats, new ObjectName(name));
+    }
+	
+    // Finds a shortest solution of the cube on the calling thread
+    public SolveResult solve(CubeState cube) {
+	return solve(cube, SolveLimits.NONE);
+    }
+	
+    // Finds a shortest solution of the cube on the calling thread, giving up
+    // without one if the search exceeds the limits
+    public SolveResult solve(CubeState cube, SolveLimits limits) {
+	return solve(cube, limits, null);
+    }
+	
+    // Finds a shortest solution of the cube on the calling thread, giving up
+    // without one if the search exceeds the limits or the token (which may
+    // be null) is cancelled
+    public SolveResult solve(CubeState cube, SolveLimits limits,
+			     CancellationToken token) {
+	SolveResult result = search(cube, limits, token);
+	stats.record(result);
+	return result;
+    }
+	
+    // solves the cube as solve does, without counting it in the stats
+    private SolveResult search(CubeState cube, SolveLimits limits,
+			       CancellationToken token) {
+	long start = System.nanoTime();
+	SearchMetrics metrics = new SearchMetrics();
+	long cornerCube = cube.getCornerCube();
+	long edgeCube = cube.getEdgeCube();
+	int costLimit = heuristic.estimate(cornerCube, edgeCube);
+	// nodes expanded by the meet-in-the-middle search, if it ran
+	long firstNodes = 0;
+	PerimeterTable perimeter = this.perimeter;
+	if (meetInTheMiddle && perimeter == null
+	    && costLimit <= MEET_IN_THE_MIDDLE_ESTIMATE) {
+	    MeetInTheMiddle bidirectional =
+		new MeetInTheMiddle(cornerCube, edgeCube, perimeter);
+	    limits.apply(bidirectional, token);
+	    int maxLength =
+		Math.min(limits.getMaxDepth(), bidirectional.getMaxLength());
+	    int[] moves = bidirectional.solve(maxLength);
+	    long nanos = System.nanoTime() - start;
+	    firstNodes = bidirectional.getNumNodes();
+	    metrics.addIteration(moves != null ? moves.length : maxLength,
+				 firstNodes, 0, nanos);
+	    int outcome = -1;
+	    if (moves != null)
+		outcome = SolveResult.SOLVED;
+	    else if (bidirectional.getAbortReason() != 0)
+		outcome = bidirectional.getAbortReason();
+	    else if (maxLength == limits.getMaxDepth())
+		outcome = SolveResult.DEPTH_LIMIT;
+	    if (outcome >= 0) {
+		metrics.finish(new long[IDAStar.GODS_NUMBER + 1]);
+		return new SolveResult(outcome, moves,
+				       moves != null ? moves.length
+				       : outcome == SolveResult.DEPTH_LIMIT
+				       ? maxLength + 1 : costLimit,
+				       firstNodes, nanos / 1000000,
+				       outcome == SolveResult.SOLVED, metrics);
+	    }
+	    // every solution of up to maxLength moves has been ruled out, so
+	    // IDA* goes on from there, with what is left of the limits
+	    costLimit = Math.max(costLimit, maxLength + 1);
+	    limits = limits.remaining(firstNodes, nanos / 1000000,
+				      limits.getMaxDepth());
+	}
+	CubeTracer tracer = new CubeTracer(IDAStar.GODS_NUMBER);
+	ForkJoinPool searchPool = this.searchPool;
+	IDAStar search = searchPool != null
+	    ? new ParallelIDAStar(heuristic, perimeter, tracer, searchPool)
+	    : new IDAStar(heuristic, perimeter, tracer, new AtomicBoolean());
+	limits.apply(search, token);
+	PrintStream out = log;
+	int bound = costLimit;
+	// set once an iteration fails to raise the cost limit
+	boolean exhausted = false;
+	// Every iteration ends with a solution (-1) or the next cost limit.  An
+	// iteration the search gave up on can still return a cost limit (from
+	// the subtrees searched before it did), so that is checked separately
+	while (!exhausted && costLimit >= 0
+	       && costLimit <= limits.getMaxDepth()
+	       && search.getAbortReason() == 0
+	       && (token == null || !token.isCancelled())) {
+	    bound = costLimit;
+	    if (out != null)
+		out.println("Search depth: " + bound);
+	    long iterationStart = System.nanoTime();
+	    long numNodes = search.getNumNodes();
+	    long numPruned = search.getNumPruned();
+	    costLimit = search.iterate(cornerCube, edgeCube, costLimit);
+	    long nanos = System.nanoTime() - iterationStart;
+	    metrics.addIteration(bound, search.getNumNodes() - numNodes,
+				 search.getNumPruned() - numPruned, nanos);
+	    if (out != null)
+		out.println(IDAStar.describeIteration(search.getNumNodes()
+						      - numNodes, nanos));
+	    // The next cost limit never exceeds God's Number, so an iteration
+	    // that searched that far without a solution returns it again: the
+	    // cube can't be solved, and the search would go on forever
+	    exhausted = costLimit >= 0 && costLimit <= bound;
+	}
+	metrics.finish(search.getHeuristicCounts());
+	int outcome;
+	if (costLimit < 0)
+	    outcome = SolveResult.SOLVED;
+	else if (search.getAbortReason() != 0)
+	    outcome = search.getAbortReason();
+	else if (token != null && token.isCancelled())
+	    outcome = SolveResult.CANCELLED;
+	else if (exhausted)
+	    outcome = SolveResult.NO_SOLUTION;
+	else if (limits.getMaxDepth() < IDAStar.GODS_NUMBER) {
+	    // every solution within maxDepth moves has been ruled out
+	    outcome = SolveResult.DEPTH_LIMIT;
+	    bound = costLimit;
+	} else
+	    outcome = SolveResult.NO_SOLUTION;
+	long millis = (System.nanoTime() - start) / 1000000;
+	return new SolveResult(outcome,
+			       costLimit < 0 ? tracer.getMoves() : null,
+			       costLimit < 0 ? tracer.getLength() : bound,
+			       firstNodes + search.getNumNodes(), millis,
+			       outcome == SolveResult.SOLVED, metrics);
+    }
+	
+    // Finds a solution of the cube at once with a TwoPhaseSolver, and then
+    // searches for shorter ones, down to a shortest one, until the limits
+    // run out or the token (which may be null) is cancelled.  The listener
+    // (which may be null) is told about every solution found, as described
+    // in SolutionListener, so a caller can use the first one right away.
+    //
+    // The optimal search only looks for solutions shorter than the best one
+    // known, so if it rules all of them out, that solution is optimal.  The
+    // result is the shortest solution found, which SolveResult.isOptimal
+    // tells apart from a shortest one.  The limits cover both searches; the
+    // maximum depth only applies to the optimal search
+    public SolveResult solveAnytime(CubeState cube, SolveLimits limits,
+				    CancellationToken token,
+				    SolutionListener listener) {
+	SolveResult result = searchAnytime(cube, limits, token, listener);
+	stats.record(result);
+	return result;
+    }
+	
+    // solves the cube as solveAnytime does, without counting it in the stats
+    private SolveResult searchAnytime(CubeState cube, SolveLimits limits,
+				      CancellationToken token,
+				      SolutionListener listener) {
+	long start = System.nanoTime();
+	long cornerCube = cube.getCornerCube();
+	long edgeCube = cube.getEdgeCube();
+	TwoPhaseSolver twoPhase =
+	    new TwoPhaseSolver(cornerCube, edgeCube, listener);
+	limits.apply(twoPhase, token);
+	int[] moves = twoPhase.solve();
+	long numNodes = twoPhase.getNumNodes();
+	long millis = (System.nanoTime() - start) / 1000000;
+	int bound = heuristic.estimate(cornerCube, edgeCube);
+	if (moves == null) {
+	    // Without an abort reason, every phase 1 solution was tried and
+	    // none led to the goal, which only happens to a cube that can't be
+	    // solved (CubeState rejects those, but the outcome must never be
+	    // SOLVED without moves)
+	    int outcome = twoPhase.getAbortReason() != 0
+		? twoPhase.getAbortReason() : SolveResult.NO_SOLUTION;
+	    return new SolveResult(outcome, null, bound, numNodes, millis);
+	}
+	if (moves.length == bound) {
+	    // no shorter solution can exist
+	    if (listener != null)
+		listener.solutionFound(moves.clone(), true);
+	    return new SolveResult(SolveResult.SOLVED, moves, bound, numNodes,
+				   millis);
+	}
+	if (twoPhase.getAbortReason() != 0)
+	    return new SolveResult(SolveResult.SOLVED, moves, bound, numNodes,
+				   millis, false);
+	SolveResult refined =
+	    search(cube, limits.remaining(numNodes, millis, moves.length - 1),
+		   token);
+	numNodes += refined.getNumNodes();
+	millis = (System.nanoTime() - start) / 1000000;
+	if (refined.isSolved()) {
+	    if (listener != null)
+		listener.solutionFound(refined.getMoves(), true);
+	    return new SolveResult(SolveResult.SOLVED, refined.getMoves(),
+				   refined.getBound(), numNodes, millis, true,
+				   refined.getMetrics());
+	}
+	// Ruling out every shorter solution proves the two-phase one optimal,
+	// unless the caller's maximum depth stopped the search short of it
+	boolean optimal = (refined.getOutcome() == SolveResult.DEPTH_LIMIT
+			   || refined.getOutcome() == SolveResult.NO_SOLUTION)
+	    && moves.length - 1 <= limits.getMaxDepth();
+	if (optimal && listener != null)
+	    listener.solutionFound(moves.clone(), true);
+	return new SolveResult(SolveResult.SOLVED, moves,
+			       optimal ? moves.length : refined.getBound(),
+			       numNodes, millis, optimal, refined.getMetrics());
+    }
+	
+    // Finds a shortest solution of the cube on one of the solver's threads.
+    // Throws a RejectedExecutionException once the solver has been closed
+    public CompletableFuture<SolveResult> solveAsync(CubeState cube) {
+	return solveAsync(cube, SolveLimits.NONE, getPool());
+    }
+	
+    // Finds a shortest solution of the cube within the limits on the
+    // specified executor.  The time limit counts from when the solve starts,
+    // not from when it is queued.  Throws a RejectedExecutionException if
+    // the executor won't take the solve
+    public CompletableFuture<SolveResult> solveAsync(CubeState cube,
+						     SolveLimits limits,
+						     Executor executor) {
+	return solveAsync(cube, limits, null, executor);
+    }
+	
+    // As above, but the solve also gives up once the token (which may be
+    // null) is cancelled, whether it is still queued or under way.
+    // (Cancelling the future itself doesn't stop the search)
+    public CompletableFuture<SolveResult> solveAsync(final CubeState cube,
+						     final SolveLimits limits,
+						     final CancellationToken token,
+						     Executor executor) {
+	return CompletableFuture.supplyAsync(new Supplier<SolveResult>() {
+		public SolveResult get() {
+		    return solve(cube, limits, token);
+		}
+	    }, executor);
+    }
+	
+    // As solveAnytime, on the specified executor (see solveAsync)
+    public CompletableFuture<SolveResult> solveAnytimeAsync(
+	final CubeState cube, final SolveLimits limits,
+	final CancellationToken token, final SolutionListener listener,
+	Executor executor) {
+	return CompletableFuture.supplyAsync(new Supplier<SolveResult>() {
+		public SolveResult get() {
+		    return solveAnytime(cube, limits, token, listener);
+		}
+	    }, executor);
+    }
+	
+    // Stops the solver's threads once the solves already started are done
+    public synchronized void close() {
+	closed = true;
+	if (pool != null)
+	    pool.shutdown();
+    }
+	
+    // returns the pool solveAsync runs its solves on, starting it if need be
+    private synchronized ExecutorService getPool() {
+	if (closed)
+	    throw new RejectedExecutionException("The solver is closed");
+	if (pool == null)
+	    pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+		    public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "cube-solver");
+			// the pool shouldn't keep the program running
+			thread.setDaemon(true);
+			return thread;
+		    }
+		});
+	return pool;
+    }
+}
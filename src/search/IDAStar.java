@@ -1,99 +1,235 @@
 package search;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import heuristics.*;
 import rotations.*;
 import structures.*;
 
-// class IDAStar implements the IDA* search algorithm as a static
-// method for use in solving Rubik's Cube
+// class IDAStar implements the IDA* search algorithm for use in solving
+// Rubik's Cube.  Each search runs on its own IDAStar object, which holds the
+// state of that search, so several searches (see CubeSolver and
+// ParallelIDAStar) can run at once
 public class IDAStar {
     // God's Number: All possible states of the Rubik's Cube can be solved in 20
     // moves or fewer.  This will help cut down the search space, when coupled
     // with the heuristic
     public static final int GODS_NUMBER = 20;
 	
-    // corner cube goal state
-    private static final long cornerGoal =
-	0b1110011000101001000001100010000010000000L;
-			
-    // edge cube goal state
-    private static final long edgeGoal =
-	0b101101010010010100000111001100010100100000110001000001000000L;
-	
-    // String array of rotation types
-    private static String[] rotationTypes =
-    {"orange90CW", "orange90CCW", "orange180", "green90CW", "green90CCW",
-     "green180", "red90CW", "red90CCW", "red180", "blue90CW", "blue90CCW",
-     "blue180", "white90CW", "white90CCW", "white180", "yellow90CW",
-     "yellow90CCW", "yellow180"};
-	
-    private static long numNodes;
-	
-    // The public method used to solve the cube via IDA*.  Input arguments are
-    // the corner and edge cube compact forms, as well as tracer, which
-    // references a CubeTracer object used to track and store moves applied to
-    // the cube.  After the algorithm completes, tracer holds the solution if it
-    // were found.  Returns true if the solution were found; false otherwise
-    public static boolean findSolution(long cornerCube, long edgeCube, 
-				       MyHashMap heuristic, CubeTracer tracer) {
-	// first, search to the depth given by the heuristic at the starting
-	// point:
-	int costLimit = (int)heuristic.get(cornerCube);
-	// perform at most God's Number of iterative deepenings:
-	for(int i = 0; i < GODS_NUMBER; i++) {
-	    System.out.println("Search depth: " + costLimit);
-	    // set the number of nodes expanded to 0
-	    numNodes = 0;
-	    // update the cost limit (i.e. the iterative depth) at each search
-	    costLimit =
-		findSolutionHelper(cornerCube, edgeCube, costLimit, 0, tracer,
-				   heuristic);
-	    // print the number of nodes expanded while searching to the current
-	    // depth
-	    System.out.println("Number of nodes expanded: " + numNodes);
-	    // cost_limit will be set to -1 if a solution is found at that depth
-	    // (which must be optimal)
-	    if(costLimit < 0) {
-		return true; // solution was found, and is stored in tracer
-	    }
-	}
-	return false; // no solution was found after searching to depth 20
+    // Whether searches skip the moves that Moves.successors leaves out.  Only
+    // worth turning off to compare the number of nodes expanded
+    private static volatile boolean movePruning = true;
+	
+    // heuristic used to prune the search
+    private Heuristic heuristic;
+	
+    // holds the moves along the current path
+    private CubeTracer tracer;
+	
+    // number of nodes expanded by this search
+    private long numNodes;
+	
+    // Number of nodes whose estimate exceeded the cost limit, and the number
+    // of nodes the heuristic returned each estimate for (see
+    // SearchMetrics.getHeuristicCounts)
+    private long numPruned;
+    private long[] heuristicCounts = new long[GODS_NUMBER + 1];
+	
+    // whether this search prunes redundant move sequences
+    private boolean pruning;
+	
+    // the perimeter table this search stops at, or null
+    private PerimeterTable perimeter;
+	
+    // Shared by all searches working on the same cube.  Once it is set, a
+    // solution has been found and the remaining searches give up
+    private AtomicBoolean solved;
+	
+    // the search gives up once it has expanded more than maxNodes nodes,
+    // System.nanoTime() passes deadline (if hasDeadline is set), or the
+    // token (if any) is cancelled
+    private long maxNodes = Long.MAX_VALUE;
+    private long deadline;
+    private boolean hasDeadline;
+    private CancellationToken token;
+	
+    // The nodes left to the searches sharing one node limit (see
+    // ParallelIDAStar), taken 1024 at a time, or null if the limit is this
+    // search's own
+    private AtomicLong nodesLeft;
+	
+    // why the search gave up (a SolveResult outcome), or 0 if it hasn't
+    private int abortReason;
+	
+    // Creates a search that records its path in tracer and stops as soon as
+    // solved is set.  Once it is within the perimeter table's radius of the
+    // cost limit, it looks the cube up instead of searching on: a cube there
+    // is either in the table, which finishes the solution, or too far from
+    // the goal.  That saves walking the last plies of every path, which are
+    // most of the nodes.  perimeter may be null, to search to the goal
+    IDAStar(Heuristic heuristic, PerimeterTable perimeter, CubeTracer tracer,
+	    AtomicBoolean solved) {
+	this.heuristic = heuristic;
+	this.perimeter = perimeter;
+	this.tracer = tracer;
+	this.solved = solved;
+	this.pruning = movePruning;
+    }
+	
+    // Turns pruning of redundant move sequences (turning the same face twice
+    // in a row, or turning opposite faces in both orders) on or off for the
+    // searches started from now on.  It is on by default
+    public static void setMovePruning(boolean enabled) {
+	movePruning = enabled;
+    }
+	
+    // returns whether redundant move sequences are currently pruned
+    static boolean isMovePruning() {
+	return movePruning;
     }
 	
-    // returns the new cost_limit if the solution is not found at the current
-    // depth, otherwise return -1, indicating that a solution was found and is
-    // contained within the CubeTracer object
-    private static int findSolutionHelper(long cornerCube, long edgeCube,
-					  int costLimit, int startCost,
-					  CubeTracer tracer,
-					  MyHashMap heuristic) {
+    // Returns the line CubeSolver logs for an iteration that expanded
+    // numNodes nodes in the specified time (see CubeSolver.setLog)
+    static String describeIteration(long numNodes, long nanos) {
+	return "Number of nodes expanded: " + numNodes + " in "
+	    + nanos / 1000000 + " ms ("
+	    + SearchMetrics.nodesPerSecond(numNodes, nanos) + " nodes/s)";
+    }
+	
+    // returns the number of nodes expanded since the search was created
+    long getNumNodes() {
+	return numNodes;
+    }
+	
+    // Returns the number of nodes the heuristic pruned since the search was
+    // created: those whose estimate exceeded the cost limit
+    long getNumPruned() {
+	return numPruned;
+    }
+	
+    // Returns the number of nodes the heuristic returned each estimate for
+    // since the search was created, indexed by estimate (the last count also
+    // holds the estimates above God's Number)
+    long[] getHeuristicCounts() {
+	return heuristicCounts.clone();
+    }
+	
+    // Makes the search give up once it has expanded more than maxNodes nodes
+    // in all, once System.nanoTime() passes deadline (if hasDeadline), or
+    // once the token is cancelled (if it isn't null)
+    void setLimits(long maxNodes, boolean hasDeadline, long deadline,
+		   CancellationToken token) {
+	this.maxNodes = maxNodes;
+	this.hasDeadline = hasDeadline;
+	this.deadline = deadline;
+	this.token = token;
+    }
+	
+    // Makes the search draw its node limit from nodesLeft, which other
+    // searches draw from as well, instead of counting against maxNodes
+    void shareNodeLimit(AtomicLong nodesLeft) {
+	this.nodesLeft = nodesLeft;
+    }
+	
+    // Returns why the search gave up (SolveResult.NODE_LIMIT, TIME_LIMIT or
+    // CANCELLED), or 0 if it hasn't
+    int getAbortReason() {
+	return abortReason;
+    }
+	
+    // makes the search give up for the specified reason, unless it already has
+    void abort(int reason) {
+	if (abortReason == 0)
+	    abortReason = reason;
+    }
+	
+    // adds the counters of another search of the same cube to this one's
+    void addCounts(IDAStar other) {
+	numNodes += other.numNodes;
+	numPruned += other.numPruned;
+	for (int i = 0; i <= GODS_NUMBER; i++)
+	    heuristicCounts[i] += other.heuristicCounts[i];
+    }
+	
+    // Runs one iteration of the search from the cube, with the specified
+    // cost limit.  Returns -1 if it found a solution (which is then in the
+    // tracer), or else the next cost limit, as search does
+    int iterate(long cornerCube, long edgeCube, int costLimit) {
+	return search(cornerCube, edgeCube, costLimit, 0, Moves.NONE);
+    }
+	
+    // Searches the subtree below the given cube, which is startCost moves
+    // from the root and was reached by lastMove (Moves.NONE at the root).
+    // Returns the new cost_limit if the solution is not found
+    // at the current depth, otherwise return -1, indicating that a solution
+    // was found and is contained within the CubeTracer object.  If another
+    // search sets the solved flag, or the search runs out of its limits,
+    // gives up and returns a cost limit larger than God's Number
+    int search(long cornerCube, long edgeCube, int costLimit, int startCost,
+	       int lastMove) {
+	// once the search has run out of its limits, unwind without counting
+	if (abortReason != 0)
+	    return GODS_NUMBER + 1;
 	// increment the number of nodes
 	numNodes++;
+	if (solved.get())
+	    return GODS_NUMBER + 1;
+	// check the limits (the clock, the token and a shared node limit only
+	// every 1024 nodes, since reading the clock costs about as much as
+	// expanding a node)
+	if (numNodes > maxNodes)
+	    abortReason = SolveResult.NODE_LIMIT;
+	else if ((numNodes & 0x3FF) == 0) {
+	    if (token != null && token.isCancelled())
+		abortReason = SolveResult.CANCELLED;
+	    else if (hasDeadline && System.nanoTime() - deadline > 0)
+		abortReason = SolveResult.TIME_LIMIT;
+	    else if (nodesLeft != null && nodesLeft.addAndGet(-0x400) < 0)
+		abortReason = SolveResult.NODE_LIMIT;
+	}
+	if (abortReason != 0)
+	    return GODS_NUMBER + 1;
 	// Indicate if we've found a solution (stored in the CubeTracer object)
-	if (cornerCube == cornerGoal && edgeCube == edgeGoal)
-	    return -1;
+	// (only the first search to find one reports it)
+	if (cornerCube == CornerCubeMoves.GOAL
+	    && edgeCube == EdgeCubeMoves.GOAL)
+	    return solved.compareAndSet(false, true) ? -1 : GODS_NUMBER + 1;
+	// Within the perimeter's radius of the cost limit, the perimeter table
+	// knows the exact distance of every cube close enough to matter
+	if (perimeter != null && costLimit - startCost <= perimeter.getRadius())
+	    return searchPerimeter(cornerCube, edgeCube, costLimit, startCost);
 	// Get the minimum estimate of the solution length from the heuristic
 	// at the starting point
-	int minCost = startCost + (int)heuristic.get(cornerCube);
+	int estimate = heuristic.estimate(cornerCube, edgeCube,
+					  costLimit - startCost);
+	heuristicCounts[Math.min(estimate, GODS_NUMBER)]++;
+	int minCost = startCost + estimate;
 	// If this estimate exceeds the cost limit, we won't find the solution
 	// along this path.  Return the value of minCost (our estimate for how
 	// long the solution is along this path)
-	if (minCost > costLimit)
+	if (minCost > costLimit) {
+	    numPruned++;
 	    return minCost;
+	}
 	// set the new cost limit to God's Number
         int nextCostLimit = GODS_NUMBER;
+	// the moves worth making from here
+	int successors = pruning ? Moves.successors(lastMove) : Moves.ALL_MOVES;
         // for all neighbors 1 move away:
-        for (String type : rotationTypes) {
+        for (int move = 0; move < Moves.NUM_MOVES; move++) {
+	    if ((successors & (1 << move)) == 0)
+		continue;
 	    // compute the next corner cube
-	    long nextCornerCube = CornerCubeMoves.rotate(cornerCube, type);
+	    long nextCornerCube = CornerCubeMoves.rotate(cornerCube, move);
 	    // compute the next edge cube
-	    long nextEdgeCube = EdgeCubeMoves.rotate(edgeCube, type);
-	    // store the move type in the tracer
-	    tracer.writeMove(type);
+	    long nextEdgeCube = EdgeCubeMoves.rotate(edgeCube, move);
+	    // store the move in the tracer
+	    tracer.writeMove(move);
 	    // make a recursive call to perform the search on the neighbor,
 	    // noting that startCost is incremented
-	    int newCostLimit = findSolutionHelper(nextCornerCube, nextEdgeCube,
-						  costLimit, (startCost + 1),
-						  tracer, heuristic);
+	    int newCostLimit = search(nextCornerCube, nextEdgeCube,
+				      costLimit, (startCost + 1), move);
 	    // if a solution is found on one of these subtrees, return
 	    // immediately
 	    if(newCostLimit < 0)
@@ -109,4 +245,31 @@ public class IDAStar {
         // nextCostLimit is min(f(node) for all nodes reached at costLimit)
         return nextCostLimit; 
     }
+	
+    // Ends the search at a cube within the perimeter's radius of the cost
+    // limit.  If the cube is close enough to the goal, writes the rest of the
+    // solution from the table to the tracer and returns -1.  Otherwise
+    // returns the length of the shortest solution through the cube, or a
+    // lower bound on it (one more than the radius, for a cube outside)
+    private int searchPerimeter(long cornerCube, long edgeCube, int costLimit,
+				int startCost) {
+	int entry = perimeter.get(cornerCube, edgeCube);
+	int distance = entry < 0 ? perimeter.getRadius() + 1
+	    : PerimeterTable.distance(entry);
+	heuristicCounts[Math.min(distance, GODS_NUMBER)]++;
+	if (startCost + distance > costLimit) {
+	    numPruned++;
+	    return startCost + distance;
+	}
+	if (!solved.compareAndSet(false, true))
+	    return GODS_NUMBER + 1;
+	for (int i = 0; i < distance; i++) {
+	    int move = PerimeterTable.move(entry);
+	    tracer.writeMove(move);
+	    cornerCube = CornerCubeMoves.rotate(cornerCube, move);
+	    edgeCube = EdgeCubeMoves.rotate(edgeCube, move);
+	    entry = perimeter.get(cornerCube, edgeCube);
+	}
+	return -1;
+    }
 }
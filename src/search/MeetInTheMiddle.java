@@ -0,0 +1,189 @@
+package search;
+
+import java.util.Arrays;
+
+import heuristics.*;
+import rotations.*;
+import structures.*;
+
+// class MeetInTheMiddle finds shortest solutions of shallow cubes by
+// searching from both ends at once.  Every cube within R moves of the goal
+// is stored once, with its distance to the goal, in a PerimeterTable shared
+// by every search (the one the solver was given, or else one of radius
+// PerimeterTable.DEFAULT_RADIUS built for it).  A search then reaches out
+// from the cube one move at a time (breadth first, keeping every cube it
+// reaches), until it reaches a stored cube.  A cube L moves from the goal is
+// solved with about 18^(L - R) rotations this way, and a cube within R moves
+// of the goal with none at all.  The cubes kept grow by a factor of 13 per
+// move, though, so the search only goes CUBE_DEPTH moves out, and since the
+// heuristic prunes IDA* to fewer nodes than that beyond a few moves,
+// CubeSolver only tries it for the cubes the heuristic puts close to the
+// goal.
+public class MeetInTheMiddle {
+    // the search from the cube goes at most this many moves out
+    public static final int CUBE_DEPTH = 4;
+	
+    private static final int numMoves = Moves.NUM_MOVES;
+	
+    // marks the cube being solved in the map of the cubes reached from it,
+    // whose values are otherwise the moves that reached them
+    private static final int ROOT = Moves.NUM_MOVES;
+	
+    // The cubes near the goal, if the solver has no perimeter table.  It is
+    // built the first time a search needs it (16 MB, taking a fraction of a
+    // second)
+    private static class GoalCubes {
+	static final PerimeterTable table =
+	    new PerimeterTable(PerimeterTable.DEFAULT_RADIUS);
+    }
+	
+    // the cube being solved
+    private long cornerCube;
+    private long edgeCube;
+	
+    // the cubes near the goal
+    private PerimeterTable goalCubes;
+	
+    // the limits, as in IDAStar
+    private long numNodes;
+    private long maxNodes = Long.MAX_VALUE;
+    private long deadline;
+    private boolean hasDeadline;
+    private CancellationToken token;
+	
+    // why the search gave up (as in IDAStar.getAbortReason), or 0
+    private int abortReason;
+	
+    // Creates a search for the specified cube, which meets the cubes of the
+    // perimeter table, or those of a table of its own if perimeter is null
+    MeetInTheMiddle(long cornerCube, long edgeCube, PerimeterTable perimeter) {
+	this.cornerCube = cornerCube;
+	this.edgeCube = edgeCube;
+	goalCubes = perimeter != null ? perimeter : GoalCubes.table;
+    }
+	
+    // returns the longest solution the search can find
+    int getMaxLength() {
+	return goalCubes.getRadius() + CUBE_DEPTH;
+    }
+	
+    // sets the limits of the search, as IDAStar.setLimits does
+    void setLimits(long maxNodes, boolean hasDeadline, long deadline,
+		   CancellationToken token) {
+	this.maxNodes = maxNodes;
+	this.hasDeadline = hasDeadline;
+	this.deadline = deadline;
+	this.token = token;
+    }
+	
+    // returns the number of cubes reached from the cube being solved
+    long getNumNodes() {
+	return numNodes;
+    }
+	
+    // Returns why the search gave up (SolveResult.NODE_LIMIT, TIME_LIMIT or
+    // CANCELLED), or 0 if it didn't
+    int getAbortReason() {
+	return abortReason;
+    }
+	
+    // Returns a shortest solution of the cube, if it is at most maxLength
+    // (and getMaxLength()) moves long.  Returns null if there is none that
+    // short, or the search ran out of its limits first
+    int[] solve(int maxLength) {
+	int entry = goalCubes.get(cornerCube, edgeCube);
+	if (entry >= 0)
+	    return PerimeterTable.distance(entry) <= maxLength
+		? toGoal(cornerCube, edgeCube) : null;
+	// Every cube reached is mapped to the move that reached it.  The search
+	// goes one move out at a time, so the cubes first reached by the dth
+	// move are d moves from the cube, and the first one in the table lies
+	// on a shortest solution
+	MyLongPairMap reached = new MyLongPairMap(1024);
+	reached.putIfAbsent(cornerCube, edgeCube, ROOT);
+	long[] corners = {cornerCube};
+	long[] edges = {edgeCube};
+	int count = 1;
+	for (int depth = 1;
+	     depth <= CUBE_DEPTH && depth + goalCubes.getRadius() <= maxLength;
+	     depth++) {
+	    long[] nextCorners = new long[count * numMoves];
+	    long[] nextEdges = new long[count * numMoves];
+	    int nextCount = 0;
+	    for (int i = 0; i < count; i++) {
+		for (int move = 0; move < numMoves; move++) {
+		    if (outOfLimits())
+			return null;
+		    long corner = CornerCubeMoves.rotate(corners[i], move);
+		    long edge = EdgeCubeMoves.rotate(edges[i], move);
+		    if (!reached.putIfAbsent(corner, edge, move))
+			continue;
+		    if (goalCubes.get(corner, edge) >= 0) {
+			int[] fromCube = fromCube(reached, corner, edge);
+			int[] toGoal = toGoal(corner, edge);
+			int[] moves = Arrays.copyOf(fromCube,
+						    fromCube.length + toGoal.length);
+			System.arraycopy(toGoal, 0, moves, fromCube.length,
+					 toGoal.length);
+			return moves;
+		    }
+		    nextCorners[nextCount] = corner;
+		    nextEdges[nextCount++] = edge;
+		}
+	    }
+	    corners = nextCorners;
+	    edges = nextEdges;
+	    count = nextCount;
+	}
+	return null;
+    }
+	
+    // Returns the moves from the cube being solved to the specified cube,
+    // following the moves recorded in reached back to the root
+    private static int[] fromCube(MyLongPairMap reached, long corner,
+				  long edge) {
+	int[] moves = new int[CUBE_DEPTH];
+	int length = 0;
+	for (int move = reached.get(corner, edge); move != ROOT;
+	     move = reached.get(corner, edge)) {
+	    moves[length++] = move;
+	    corner = CornerCubeMoves.rotate(corner, Moves.inverse(move));
+	    edge = EdgeCubeMoves.rotate(edge, Moves.inverse(move));
+	}
+	// the moves were found from the last one back
+	int[] path = new int[length];
+	for (int i = 0; i < length; i++)
+	    path[i] = moves[length - 1 - i];
+	return path;
+    }
+	
+    // Returns the shortest solution the table holds for a cube in it
+    private int[] toGoal(long corner, long edge) {
+	int entry = goalCubes.get(corner, edge);
+	int[] moves = new int[PerimeterTable.distance(entry)];
+	for (int i = 0; i < moves.length; i++) {
+	    moves[i] = PerimeterTable.move(entry);
+	    corner = CornerCubeMoves.rotate(corner, moves[i]);
+	    edge = EdgeCubeMoves.rotate(edge, moves[i]);
+	    entry = goalCubes.get(corner, edge);
+	}
+	return moves;
+    }
+	
+    // Counts a node, and returns true if the search has run out of its
+    // limits (checking the clock and the token only every 1024 nodes)
+    private boolean outOfLimits() {
+	if (abortReason != 0)
+	    return true;
+	numNodes++;
+	if (numNodes > maxNodes)
+	    abortReason = SolveResult.NODE_LIMIT;
+	else if ((numNodes & 0x3FF) == 0) {
+	    if (token != null && token.isCancelled())
+		abortReason = SolveResult.CANCELLED;
+	    else if (hasDeadline && System.nanoTime() - deadline > 0)
+		abortReason = SolveResult.TIME_LIMIT;
+	}
+	return abortReason != 0;
+    }
+}
@@ -0,0 +1,246 @@
+package search;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import heuristics.*;
+import rotations.*;
+import structures.*;
+
+// class ParallelIDAStar runs the same search as IDAStar, but spreads each
+// iteration over the threads of a ForkJoinPool (see
+// CubeSolver.setSearchPool).
+//
+// The root is expanded to a fixed depth once, giving a frontier of subtrees.
+// Every iteration then searches all the subtrees as fork/join tasks, so idle
+// threads steal work from busy ones, and combines their next cost limits by
+// taking the minimum, exactly as IDAStar does for the children of a node.
+//
+// Optimality is preserved: the iteration with cost limit c only starts once
+// the previous iteration has searched every path with cost up to the previous
+// limit without finding a solution, and c is the smallest estimate that
+// exceeded that limit.  So no solution is shorter than c, and any solution
+// found in this iteration (which can't be longer than c) is optimal.  The
+// first subtree to find one sets a shared flag, which stops all the others.
+//
+// The limits apply to the iteration as a whole: every subtree search watches
+// the same deadline and token, and draws on one node limit.  Once any of them
+// gives up, the subtrees not yet started are skipped.  The counters of the
+// subtree searches are added to this one's as they finish
+public class ParallelIDAStar extends IDAStar {
+    // depth the root is expanded to before the subtrees are handed out
+    // (18^3 = 5832 subtrees, which keeps every thread busy)
+    public static final int FRONTIER_DEPTH = 3;
+	
+    // A cube at the frontier, along with the moves that lead to it from the
+    // root and the estimated solution lengths of the cubes along the way
+    private static class Subtree {
+	long cornerCube;
+	long edgeCube;
+	int[] moves = new int[FRONTIER_DEPTH];
+	int[] minCosts = new int[FRONTIER_DEPTH];
+    }
+	
+    // Searches one contiguous range of the frontier, splitting it in half
+    // until single subtrees remain.  Returns the next cost limit, or -1 if a
+    // solution was found
+    private static class SubtreeTask extends RecursiveTask<Integer> {
+	private static final long serialVersionUID = 1L;
+	
+	private ParallelIDAStar owner;
+	private int from;
+	private int to;
+	private int costLimit;
+	private AtomicBoolean solved;
+	private AtomicLong nodesLeft;
+	private AtomicInteger abortReason;
+	
+	SubtreeTask(ParallelIDAStar owner, int from, int to, int costLimit,
+		    AtomicBoolean solved, AtomicLong nodesLeft,
+		    AtomicInteger abortReason) {
+	    this.owner = owner;
+	    this.from = from;
+	    this.to = to;
+	    this.costLimit = costLimit;
+	    this.solved = solved;
+	    this.nodesLeft = nodesLeft;
+	    this.abortReason = abortReason;
+	}
+	
+	protected Integer compute() {
+	    if (to - from > 1) {
+		int middle = (from + to) >>> 1;
+		SubtreeTask left =
+		    new SubtreeTask(owner, from, middle, costLimit, solved,
+				    nodesLeft, abortReason);
+		SubtreeTask right =
+		    new SubtreeTask(owner, middle, to, costLimit, solved,
+				    nodesLeft, abortReason);
+		left.fork();
+		int rightLimit = right.compute();
+		int leftLimit = left.join();
+		if (leftLimit < 0 || rightLimit < 0)
+		    return -1;
+		return Math.min(leftLimit, rightLimit);
+	    }
+	    // Once a search has given up, so has the iteration.  A subtree
+	    // search only checks the limits every 1024 nodes, and most
+	    // subtrees are smaller than that, so they are checked here too
+	    if (abortReason.get() == 0)
+		abortReason.compareAndSet(0, owner.checkLimits(nodesLeft));
+	    if (abortReason.get() != 0)
+		return GODS_NUMBER + 1;
+	    Subtree subtree = owner.frontier[from];
+	    // a cube on the way to the frontier may already exceed the cost
+	    // limit, in which case IDAStar would never have gotten this far
+	    for (int minCost : subtree.minCosts)
+		if (minCost > costLimit)
+		    return minCost;
+	    CubeTracer tracer = new CubeTracer(GODS_NUMBER);
+	    for (int move : subtree.moves)
+		tracer.writeMove(move);
+	    IDAStar search =
+		new IDAStar(owner.heuristic, owner.perimeter, tracer, solved);
+	    search.setLimits(Long.MAX_VALUE, owner.hasDeadline, owner.deadline,
+			     owner.token);
+	    search.shareNodeLimit(nodesLeft);
+	    int nextCostLimit = search.search(subtree.cornerCube, subtree.edgeCube,
+					      costLimit, FRONTIER_DEPTH,
+					      subtree.moves[FRONTIER_DEPTH - 1]);
+	    owner.add(search);
+	    // the search draws on the node limit 1024 nodes at a time, so the
+	    // ones expanded since its last draw are drawn now
+	    nodesLeft.addAndGet(-(search.getNumNodes() & 0x3FF));
+	    if (search.getAbortReason() != 0)
+		abortReason.compareAndSet(0, search.getAbortReason());
+	    if (nextCostLimit < 0) {
+		// only one search can report a solution, so this is the only
+		// task writing to the shared tracer
+		for (int move : tracer.getMoves())
+		    owner.tracer.writeMove(move);
+		return -1;
+	    }
+	    return nextCostLimit;
+	}
+    }
+	
+    private Heuristic heuristic;
+    private PerimeterTable perimeter;
+    private CubeTracer tracer;
+    private ForkJoinPool pool;
+	
+    // the subtrees of the cube being searched, once it has been expanded
+    private Subtree[] frontier;
+	
+    // the limits every subtree search is given (see IDAStar.setLimits)
+    private long maxNodes = Long.MAX_VALUE;
+    private boolean hasDeadline;
+    private long deadline;
+    private CancellationToken token;
+	
+    // Creates a search of one cube that records its solution in tracer and
+    // runs each iteration on the threads of pool, stopping at the perimeter
+    // table (if it isn't null) as IDAStar does
+    ParallelIDAStar(Heuristic heuristic, PerimeterTable perimeter,
+		    CubeTracer tracer, ForkJoinPool pool) {
+	super(heuristic, perimeter, tracer, new AtomicBoolean());
+	this.heuristic = heuristic;
+	this.perimeter = perimeter;
+	this.tracer = tracer;
+	this.pool = pool;
+    }
+	
+    // sets the limits of the whole search, as IDAStar.setLimits does
+    void setLimits(long maxNodes, boolean hasDeadline, long deadline,
+		   CancellationToken token) {
+	super.setLimits(maxNodes, hasDeadline, deadline, token);
+	this.maxNodes = maxNodes;
+	this.hasDeadline = hasDeadline;
+	this.deadline = deadline;
+	this.token = token;
+    }
+	
+    // Runs one iteration with the specified cost limit on the pool, as
+    // IDAStar.iterate does on the calling thread
+    int iterate(long cornerCube, long edgeCube, int costLimit) {
+	// Shallow iterations are over before they'd be worth splitting up,
+	// and a solution shorter than the frontier depth would be missed
+	if (costLimit <= FRONTIER_DEPTH)
+	    return super.iterate(cornerCube, edgeCube, costLimit);
+	if (frontier == null)
+	    frontier = expand(cornerCube, edgeCube, heuristic);
+	AtomicInteger abortReason = new AtomicInteger();
+	tracer.reset();
+	AtomicLong nodesLeft = new AtomicLong(maxNodes - getNumNodes());
+	int nextCostLimit =
+	    pool.invoke(new SubtreeTask(this, 0, frontier.length, costLimit,
+					new AtomicBoolean(), nodesLeft,
+					abortReason));
+	if (abortReason.get() != 0)
+	    abort(abortReason.get());
+	return nextCostLimit;
+    }
+	
+    // Returns why the search has to give up (a SolveResult outcome), given
+    // the nodes left to it, or 0 if it doesn't
+    private int checkLimits(AtomicLong nodesLeft) {
+	if (nodesLeft.get() < 0)
+	    return SolveResult.NODE_LIMIT;
+	if (token != null && token.isCancelled())
+	    return SolveResult.CANCELLED;
+	if (hasDeadline && System.nanoTime() - deadline > 0)
+	    return SolveResult.TIME_LIMIT;
+	return 0;
+    }
+	
+    // adds the counters of a subtree search that has finished
+    private synchronized void add(IDAStar search) {
+	addCounts(search);
+    }
+	
+    // Returns every cube FRONTIER_DEPTH moves from the given cube (reached by
+    // a sequence that move pruning keeps, if it is on)
+    private static Subtree[] expand(long cornerCube, long edgeCube,
+				    Heuristic heuristic) {
+	int size = 1;
+	for (int i = 0; i < FRONTIER_DEPTH; i++)
+	    size *= Moves.NUM_MOVES;
+	Subtree[] frontier = new Subtree[size];
+	Subtree path = new Subtree();
+	int[] count = new int[1];
+	expand(cornerCube, edgeCube, 0, path, frontier, count, heuristic,
+	       IDAStar.isMovePruning());
+	return Arrays.copyOf(frontier, count[0]);
+    }
+	
+    // adds the cubes below the given cube, which is depth moves along path,
+    // to the frontier.  count holds the number of cubes added so far
+    private static void expand(long cornerCube, long edgeCube, int depth,
+			       Subtree path, Subtree[] frontier, int[] count,
+			       Heuristic heuristic, boolean pruning) {
+	if (depth == FRONTIER_DEPTH) {
+	    Subtree subtree = new Subtree();
+	    subtree.cornerCube = cornerCube;
+	    subtree.edgeCube = edgeCube;
+	    subtree.moves = path.moves.clone();
+	    subtree.minCosts = path.minCosts.clone();
+	    frontier[count[0]++] = subtree;
+	    return;
+	}
+	path.minCosts[depth] = depth + heuristic.estimate(cornerCube, edgeCube);
+	int lastMove = depth == 0 ? Moves.NONE : path.moves[depth - 1];
+	int successors = pruning ? Moves.successors(lastMove) : Moves.ALL_MOVES;
+	for (int move = 0; move < Moves.NUM_MOVES; move++) {
+	    if ((successors & (1 << move)) == 0)
+		continue;
+	    path.moves[depth] = move;
+	    expand(CornerCubeMoves.rotate(cornerCube, move),
+		   EdgeCubeMoves.rotate(edgeCube, move), depth + 1, path,
+		   frontier, count, heuristic, pruning);
+	}
+    }
+}
@@ -0,0 +1,145 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// class SearchMetrics records where the time of one solve by a CubeSolver
+// went: the nodes expanded, the nodes the heuristic pruned and the time
+// taken by each iteration of IDA*, how often the heuristic returned each
+// value, and the memory in use once the solve was done.  Comparing them for
+// two heuristics shows which prunes more, and at what cost per node
+public class SearchMetrics {
+    // the counters of one iteration of IDA*, searching to one cost limit
+    public static class Iteration {
+	private final int bound;
+	private final long numNodes;
+	private final long numPruned;
+	private final long nanos;
+	
+	Iteration(int bound, long numNodes, long numPruned, long nanos) {
+	    this.bound = bound;
+	    this.numNodes = numNodes;
+	    this.numPruned = numPruned;
+	    this.nanos = nanos;
+	}
+	
+	// returns the cost limit the iteration searched to
+	public int getBound() {
+	    return bound;
+	}
+	
+	// returns the number of nodes the iteration expanded
+	public long getNumNodes() {
+	    return numNodes;
+	}
+	
+	// Returns the number of nodes whose heuristic estimate exceeded the
+	// cost limit, so that the search went no further below them
+	public long getNumPruned() {
+	    return numPruned;
+	}
+	
+	// returns the time the iteration took, in nanoseconds
+	public long getNanos() {
+	    return nanos;
+	}
+	
+	// returns the number of nodes expanded per second
+	public long getNodesPerSecond() {
+	    return nodesPerSecond(numNodes, nanos);
+	}
+	
+	// e.g. "bound 12: 1201554 nodes, 1088422 pruned, 231 ms, 5201532 nodes/s"
+	public String toString() {
+	    return "bound " + bound + ": " + numNodes + " nodes, " + numPruned
+		+ " pruned, " + nanos / 1000000 + " ms, " + getNodesPerSecond()
+		+ " nodes/s";
+	}
+    }
+	
+    private final List<Iteration> iterations = new ArrayList<Iteration>();
+	
+    // the number of nodes the heuristic returned each estimate for, indexed
+    // by estimate (estimates above God's Number are counted at the end)
+    private long[] heuristicCounts = new long[IDAStar.GODS_NUMBER + 1];
+	
+    // the heap in use once the solve was done, in bytes
+    private long memoryUsed;
+	
+    SearchMetrics() {
+    }
+	
+    // records an iteration of the search
+    void addIteration(int bound, long numNodes, long numPruned, long nanos) {
+	iterations.add(new Iteration(bound, numNodes, numPruned, nanos));
+    }
+	
+    // Records the heuristic counts of the finished search (see
+    // IDAStar.getHeuristicCounts), and the heap in use now
+    void finish(long[] heuristicCounts) {
+	this.heuristicCounts = heuristicCounts.clone();
+	Runtime runtime = Runtime.getRuntime();
+	memoryUsed = runtime.totalMemory() - runtime.freeMemory();
+    }
+	
+    // returns the iterations of the search, in order
+    public Iteration[] getIterations() {
+	return iterations.toArray(new Iteration[iterations.size()]);
+    }
+	
+    // returns the number of nodes expanded by every iteration together
+    public long getNumNodes() {
+	long numNodes = 0;
+	for (Iteration iteration : iterations)
+	    numNodes += iteration.numNodes;
+	return numNodes;
+    }
+	
+    // returns the number of nodes pruned by every iteration together
+    public long getNumPruned() {
+	long numPruned = 0;
+	for (Iteration iteration : iterations)
+	    numPruned += iteration.numPruned;
+	return numPruned;
+    }
+	
+    // returns the time taken by every iteration together, in nanoseconds
+    public long getNanos() {
+	long nanos = 0;
+	for (Iteration iteration : iterations)
+	    nanos += iteration.nanos;
+	return nanos;
+    }
+	
+    // returns the number of nodes expanded per second, over the whole search
+    public long getNodesPerSecond() {
+	return nodesPerSecond(getNumNodes(), getNanos());
+    }
+	
+    // Returns the number of nodes the heuristic returned each estimate for,
+    // indexed by estimate.  The last count also holds the estimates above
+    // God's Number.  A heuristic that can stop once the estimate exceeds the
+    // cost limit (see heuristics.Heuristic) is counted at the value it
+    // stopped at
+    public long[] getHeuristicCounts() {
+	return heuristicCounts.clone();
+    }
+	
+    // returns the heap in use once the solve was done, in bytes
+    public long getMemoryUsed() {
+	return memoryUsed;
+    }
+	
+    // returns one line per iteration, as Iteration.toString writes them
+    public String toString() {
+	StringBuilder lines = new StringBuilder();
+	for (Iteration iteration : iterations)
+	    lines.append(iteration).append('\n');
+	return lines.toString();
+    }
+	
+    // returns the number of nodes expanded per second, given the time taken
+    static long nodesPerSecond(long numNodes, long nanos) {
+	return nanos > 0 ? (long)(numNodes * 1e9 / nanos) : 0;
+    }
+}
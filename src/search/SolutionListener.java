@@ -0,0 +1,11 @@
+package search;
+
+// Receives the solutions CubeSolver.solveAnytime finds along the way, each
+// shorter than the one before (except that a solution found by the two-phase
+// search is passed again once it is proven optimal).  It is called on the
+// thread doing the solve, so it should return quickly
+public interface SolutionListener {
+    // Called with the moves of a solution (constants from rotations.Moves).
+    // optimal is true if no solution can be shorter
+    void solutionFound(int[] moves, boolean optimal);
+}
@@ -0,0 +1,88 @@
+package search;
+
+// class SolveLimits bounds the work a CubeSolver spends on one cube: the
+// number of nodes the search may expand, the time it may take, and the
+// longest solution it looks for.  A search that runs out of any of them
+// gives up without a solution.  Without limits, a deeply scrambled cube can
+// keep a thread busy for hours
+public class SolveLimits {
+    // no limits at all
+    public static final SolveLimits NONE =
+	new SolveLimits(Long.MAX_VALUE, Long.MAX_VALUE, IDAStar.GODS_NUMBER);
+	
+    private final long maxNodes;
+    private final long maxMillis;
+    private final int maxDepth;
+	
+    // Creates limits of maxNodes nodes, maxMillis milliseconds (Long.MAX_VALUE
+    // for no limit) and solutions of at most maxDepth moves
+    public SolveLimits(long maxNodes, long maxMillis, int maxDepth) {
+	if (maxNodes < 1 || maxMillis < 1 || maxDepth < 0)
+	    throw new IllegalArgumentException("Limits must be positive");
+	this.maxNodes = maxNodes;
+	this.maxMillis = maxMillis;
+	this.maxDepth = Math.min(maxDepth, IDAStar.GODS_NUMBER);
+    }
+	
+    // Creates limits of maxNodes nodes and maxMillis milliseconds
+    // (Long.MAX_VALUE for no limit)
+    public SolveLimits(long maxNodes, long maxMillis) {
+	this(maxNodes, maxMillis, IDAStar.GODS_NUMBER);
+    }
+	
+    public long getMaxNodes() {
+	return maxNodes;
+    }
+	
+    public long getMaxMillis() {
+	return maxMillis;
+    }
+	
+    public int getMaxDepth() {
+	return maxDepth;
+    }
+	
+    // returns the tighter of these limits and the specified ones
+    public SolveLimits min(SolveLimits other) {
+	return new SolveLimits(Math.min(maxNodes, other.maxNodes),
+			       Math.min(maxMillis, other.maxMillis),
+			       Math.min(maxDepth, other.maxDepth));
+    }
+	
+    // Sets the search's node and time limits, taking the time limit from
+    // now, and the token that cancels it (which may be null)
+    void apply(IDAStar search, CancellationToken token) {
+	search.setLimits(maxNodes, hasDeadline(), deadline(), token);
+    }
+	
+    // as above, for a TwoPhaseSolver
+    void apply(TwoPhaseSolver search, CancellationToken token) {
+	search.setLimits(maxNodes, hasDeadline(), deadline(), token);
+    }
+	
+    // as above, for a MeetInTheMiddle
+    void apply(MeetInTheMiddle search, CancellationToken token) {
+	search.setLimits(maxNodes, hasDeadline(), deadline(), token);
+    }
+	
+    // Returns what is left of these limits after a search that expanded
+    // numNodes nodes in the specified time, allowing solutions of at most
+    // maxDepth moves.  Whatever is used up is left at its smallest value,
+    // so that a search under the remainder gives up almost at once
+    SolveLimits remaining(long numNodes, long millis, int maxDepth) {
+	return new SolveLimits(Math.max(1, maxNodes - numNodes),
+			       hasDeadline() ? Math.max(1, maxMillis - millis)
+			       : maxMillis,
+			       Math.min(this.maxDepth, maxDepth));
+    }
+	
+    // returns whether there is a time limit
+    private boolean hasDeadline() {
+	return maxMillis < Long.MAX_VALUE / 1000000;
+    }
+	
+    // returns the end of the time limit, counted from now, in System.nanoTime
+    private long deadline() {
+	return System.nanoTime() + (hasDeadline() ? maxMillis * 1000000 : 0);
+    }
+}
@@ -0,0 +1,172 @@
+package search;
+
+import rotations.*;
+
+// class SolveResult holds the outcome of one solve by a CubeSolver: the
+// solution (if one was found) or the reason the search gave up, the number
+// of nodes the search expanded, and how long it took
+public class SolveResult {
+    // the outcomes of a solve
+    public static final int SOLVED = 0;
+    public static final int NO_SOLUTION = 1; // none within God's Number
+    public static final int NODE_LIMIT = 2;
+    public static final int TIME_LIMIT = 3;
+    public static final int DEPTH_LIMIT = 4;
+    public static final int CANCELLED = 5;
+	
+    // names of the outcomes, in outcome order
+    private static final String[] outcomeNames =
+    {"solved", "no solution", "node limit", "time limit", "depth limit",
+     "cancelled"};
+	
+    private final int outcome;
+	
+    // the moves of the solution (constants from rotations.Moves), or null if
+    // no solution was found
+    private final int[] moves;
+	
+    // every solution is at least this long (see getBound)
+    private final int bound;
+	
+    // whether no solution is shorter than moves
+    private final boolean optimal;
+	
+    private final long numNodes;
+    private final long millis;
+	
+    // the counters of the optimal search, or null if there was none
+    private final SearchMetrics metrics;
+	
+    SolveResult(int outcome, int[] moves, int bound, long numNodes,
+		long millis) {
+	this(outcome, moves, bound, numNodes, millis, outcome == SOLVED);
+    }
+	
+    SolveResult(int outcome, int[] moves, int bound, long numNodes,
+		long millis, boolean optimal) {
+	this(outcome, moves, bound, numNodes, millis, optimal, null);
+    }
+	
+    SolveResult(int outcome, int[] moves, int bound, long numNodes,
+		long millis, boolean optimal, SearchMetrics metrics) {
+	this.outcome = outcome;
+	this.moves = moves;
+	this.bound = bound;
+	this.numNodes = numNodes;
+	this.millis = millis;
+	this.optimal = optimal;
+	this.metrics = metrics;
+    }
+	
+    // returns whether a solution was found
+    public boolean isSolved() {
+	return outcome == SOLVED;
+    }
+	
+    // Returns whether the solution is known to be a shortest one.  Only
+    // CubeSolver.solveAnytime finds solutions that may not be
+    public boolean isOptimal() {
+	return optimal;
+    }
+	
+    // returns the outcome of the solve (SOLVED, or why the search gave up)
+    public int getOutcome() {
+	return outcome;
+    }
+	
+    // returns the name of the outcome, e.g. "node limit"
+    public String getOutcomeName() {
+	return outcomeNames[outcome];
+    }
+	
+    // Returns the length of the solution if it is optimal, or else the cost
+    // limit the search had reached when it gave up.  The search had ruled out
+    // every shorter solution by then, so the cube takes at least this many
+    // moves to solve
+    public int getBound() {
+	return bound;
+    }
+	
+    // Returns the moves of the solution (constants from rotations.Moves), or
+    // null if no solution was found
+    public int[] getMoves() {
+	return moves == null ? null : moves.clone();
+    }
+	
+    // returns the number of moves in the solution, or -1 if there is none
+    public int getLength() {
+	return moves == null ? -1 : moves.length;
+    }
+	
+    // Returns the solution as move names separated by spaces (the empty
+    // string for a solved cube), or null if no solution was found
+    public String getSolution() {
+	if (moves == null)
+	    return null;
+	StringBuilder solution = new StringBuilder();
+	for (int move : moves) {
+	    if (solution.length() > 0)
+		solution.append(' ');
+	    solution.append(Moves.toString(move));
+	}
+	return solution.toString();
+    }
+	
+    // returns the number of nodes the search expanded
+    public long getNumNodes() {
+	return numNodes;
+    }
+	
+    // returns the time the search took, in milliseconds
+    public long getMillis() {
+	return millis;
+    }
+	
+    // Returns the counters of each iteration of the optimal search, or null
+    // if there was no optimal search (a solveAnytime that stopped at the
+    // two-phase solution)
+    public SearchMetrics getMetrics() {
+	return metrics;
+    }
+	
+    // Returns a description of why no solution was found, e.g. "Aborted at
+    // bound 14 after 1000001 nodes (node limit)", or null if one was
+    public String getError() {
+	if (outcome == SOLVED)
+	    return null;
+	if (outcome == NO_SOLUTION)
+	    return "No solution within " + IDAStar.GODS_NUMBER + " moves";
+	return "Aborted at bound " + bound + " after " + numNodes + " nodes ("
+	    + outcomeNames[outcome] + ")";
+    }
+	
+    // Returns the result as a JSON object: the solution, its length, whether
+    // it is optimal (and the bound if it isn't), the number of nodes and the
+    // time if it was solved, or an error, the outcome, the bound, the number
+    // of nodes and the time if it wasn't
+    public String toJson() {
+	if (moves == null)
+	    return "{\"error\":" + quote(getError()) + ",\"outcome\":"
+		+ quote(getOutcomeName()) + ",\"bound\":" + bound
+		+ ",\"nodes\":" + numNodes + ",\"millis\":" + millis + "}";
+	return "{\"solution\":" + quote(getSolution()) + ",\"length\":"
+	    + moves.length + ",\"optimal\":" + optimal
+	    + (optimal ? "" : ",\"bound\":" + bound) + ",\"nodes\":"
+	    + numNodes + ",\"millis\":" + millis + "}";
+    }
+	
+    // returns the string as a JSON string literal
+    public static String quote(String s) {
+	StringBuilder quoted = new StringBuilder("\"");
+	for (int i = 0; i < s.length(); i++) {
+	    char c = s.charAt(i);
+	    if (c == '"' || c == '\\')
+		quoted.append('\\').append(c);
+	    else if (c < ' ')
+		quoted.append(String.format("\\u%04x", (int)c));
+	    else
+		quoted.append(c);
+	}
+	return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,91 @@
+package search;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// class SolverStats adds up the SearchMetrics of every solve by a
+// CubeSolver, for watching a long-running solver (e.g. a server.SolveServer)
+// through JMX.  See CubeSolver.registerMBean
+public class SolverStats implements SolverStatsMBean {
+    private final AtomicLong solves = new AtomicLong();
+    private final AtomicLong solved = new AtomicLong();
+    private final AtomicLong nodesExpanded = new AtomicLong();
+    private final AtomicLong nodesPruned = new AtomicLong();
+    private final AtomicLong solveNanos = new AtomicLong();
+    private final AtomicLongArray heuristicCounts =
+	new AtomicLongArray(IDAStar.GODS_NUMBER + 1);
+    private volatile long lastNodesPerSecond;
+	
+    // adds the result of a solve
+    void record(SolveResult result) {
+	solves.incrementAndGet();
+	if (result.isSolved())
+	    solved.incrementAndGet();
+	SearchMetrics metrics = result.getMetrics();
+	if (metrics == null)
+	    return;
+	nodesExpanded.addAndGet(metrics.getNumNodes());
+	nodesPruned.addAndGet(metrics.getNumPruned());
+	solveNanos.addAndGet(metrics.getNanos());
+	long[] counts = metrics.getHeuristicCounts();
+	for (int i = 0; i < counts.length; i++)
+	    heuristicCounts.addAndGet(i, counts[i]);
+	lastNodesPerSecond = metrics.getNodesPerSecond();
+    }
+	
+    public long getSolves() {
+	return solves.get();
+    }
+	
+    public long getSolved() {
+	return solved.get();
+    }
+	
+    public long getAborted() {
+	return solves.get() - solved.get();
+    }
+	
+    public long getNodesExpanded() {
+	return nodesExpanded.get();
+    }
+	
+    public long getNodesPruned() {
+	return nodesPruned.get();
+    }
+	
+    public long getSolveMillis() {
+	return solveNanos.get() / 1000000;
+    }
+	
+    public long getNodesPerSecond() {
+	return SearchMetrics.nodesPerSecond(nodesExpanded.get(),
+					    solveNanos.get());
+    }
+	
+    public long getLastNodesPerSecond() {
+	return lastNodesPerSecond;
+    }
+	
+    public long[] getHeuristicCounts() {
+	long[] counts = new long[heuristicCounts.length()];
+	for (int i = 0; i < counts.length; i++)
+	    counts[i] = heuristicCounts.get(i);
+	return counts;
+    }
+	
+    public long getMemoryUsed() {
+	Runtime runtime = Runtime.getRuntime();
+	return runtime.totalMemory() - runtime.freeMemory();
+    }
+	
+    public void reset() {
+	solves.set(0);
+	solved.set(0);
+	nodesExpanded.set(0);
+	nodesPruned.set(0);
+	solveNanos.set(0);
+	for (int i = 0; i < heuristicCounts.length(); i++)
+	    heuristicCounts.set(i, 0);
+	lastNodesPerSecond = 0;
+    }
+}
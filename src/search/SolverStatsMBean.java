@@ -0,0 +1,32 @@
+package search;
+
+// The management interface of SolverStats, through which JMX clients (such
+// as jconsole) read the counters of a CubeSolver
+public interface SolverStatsMBean {
+    // number of solves finished, and of those that found a solution
+    long getSolves();
+    long getSolved();
+	
+    // number of solves that gave up (on a limit, or cancelled)
+    long getAborted();
+	
+    // nodes expanded, and nodes pruned by the heuristic, over every solve
+    long getNodesExpanded();
+    long getNodesPruned();
+	
+    // time spent solving, in milliseconds, over every solve
+    long getSolveMillis();
+	
+    // nodes expanded per second, over every solve and over the last one
+    long getNodesPerSecond();
+    long getLastNodesPerSecond();
+	
+    // how often the heuristic returned each estimate, over every solve
+    long[] getHeuristicCounts();
+	
+    // the heap in use, in bytes
+    long getMemoryUsed();
+	
+    // sets every counter back to zero
+    void reset();
+}
@@ -0,0 +1,515 @@
+package search;
+
+import java.util.Arrays;
+
+import heuristics.*;
+import rotations.*;
+
+// class TwoPhaseSolver finds a short, but not necessarily shortest, solution
+// in a few milliseconds, using Kociemba's two-phase algorithm.  CubeSolver
+// uses it to have an answer at once, and the length of that answer as an
+// upper bound for the optimal search.
+//
+// Phase 1 takes the cube into the subgroup G1 generated by
+//
+//   orange and red (any turn), and green, blue, white and yellow (180 only)
+//
+// which holds the cubes whose corner twist is 0 (the twist is measured from
+// the orange and red facets, see CornerCubeMoves), whose edge flip is 0 (by
+// the measure of flip defined below, which the G1 moves keep), and whose
+// slice edges (the four between the orange and red faces,
+// CoordinateMoves.SLICE_EDGES) are in the slice.  Phase 2 then solves the
+// cube using only the G1 moves.  Each phase is an IDA* search on a handful
+// of coordinates, with pruning tables small enough to build in a second.
+//
+// The phase 1 solutions are tried in order of length, and every one of them
+// is finished by the shortest phase 2 solution that improves on the best
+// solution so far, so the solutions found get shorter as the search goes on.
+public class TwoPhaseSolver {
+    // The search stops improving its solution once it is this long.  Most
+    // cubes have a solution this long that the search finds quickly
+    public static final int TARGET_LENGTH = 20;
+	
+    // longest solutions searched for in each phase
+    private static final int MAX_PHASE1 = 12;
+    private static final int MAX_PHASE2 = 18;
+	
+    // number of ways to choose the four slice slots (12 choose 4), and of
+    // ways to arrange the slice edges within them (4!)
+    private static final int NUM_SLICES = 495;
+    private static final int NUM_SLICE_PERMUTATIONS = 24;
+	
+    private static final int numMoves = Moves.NUM_MOVES;
+    private static final int numFlips = CoordinateMoves.NUM_FLIPS;
+    private static final int numTwists = CornerIndexer.NUM_TWISTS;
+    private static final int numPermutations = CornerIndexer.NUM_PERMUTATIONS;
+    private static final int numPositions = CoordinateMoves.NUM_EDGE_POSITIONS;
+	
+    // number of bits used by a single corner or edge slot
+    private static final int numBits = 5;
+	
+    // bit mask of the moves of G1, with the bit for move m at 1 << m
+    private static final int phase2Moves =
+	1 << Moves.ORANGE_90_CW | 1 << Moves.ORANGE_90_CCW
+	| 1 << Moves.ORANGE_180 | 1 << Moves.RED_90_CW | 1 << Moves.RED_90_CCW
+	| 1 << Moves.RED_180 | 1 << Moves.GREEN_180 | 1 << Moves.BLUE_180
+	| 1 << Moves.WHITE_180 | 1 << Moves.YELLOW_180;
+	
+    // The edge flip of EdgeCubeMoves is measured from different faces in
+    // different slots, and some G1 moves change it.  Phase 1 uses the flip
+    // of each slot xor flipOffsets[slot] xor flipOffsets[cubie] instead,
+    // which no G1 move changes.  It agrees with the usual flip on a cube
+    // whose cubies are all in place
+    private static final int[] flipOffsets = new int[12];
+	
+    // the phase 1 coordinates: the flip (read as in CoordinateMoves.flip,
+    // but with the measure above) and the slots holding the slice edges,
+    // numbered by sliceIds
+    private static final short[] flipMoves = new short[numFlips * numMoves];
+    private static final short[] sliceMoves = new short[NUM_SLICES * numMoves];
+    private static final short[] sliceIds = new short[1 << 12];
+    private static final int goalSlice;
+	
+    // the phase 2 coordinate of the slice edges: their positions (as in
+    // CoordinateMoves) numbered by slicePermutations, or -1 for positions
+    // outside the slice
+    private static final byte[] slicePermutations = new byte[numPositions];
+    private static final byte[] slicePermutationMoves =
+	new byte[NUM_SLICE_PERMUTATIONS * numMoves];
+	
+    // The pruning tables: the number of moves needed to solve a pair of
+    // coordinates, indexed by first * (size of second) + second
+    private static final byte[] twistSliceDistances;
+    private static final byte[] flipSliceDistances;
+    private static final byte[] cornerSliceDistances;
+    private static final byte[] orangeSliceDistances;
+    private static final byte[] redSliceDistances;
+	
+    // the phase 2 coordinates of the solved cube
+    private static final int goalCorners =
+	CoordinateMoves.permutation(CornerCubeMoves.GOAL);
+    private static final int goalOrange =
+	CoordinateMoves.positions(0, EdgeCubeMoves.GOAL);
+    private static final int goalRed =
+	CoordinateMoves.positions(1, EdgeCubeMoves.GOAL);
+	
+    static {
+	// The offsets are found by following every G1 move from the solved
+	// cube: a move that takes slot i to slot j and flips the cubie must
+	// connect offsets that differ, and one that doesn't, offsets that are
+	// the same
+	int[][] targets = new int[numMoves][12];
+	int[][] flips = new int[numMoves][12];
+	for (int move = 0; move < numMoves; move++) {
+	    long cube = EdgeCubeMoves.rotate(EdgeCubeMoves.GOAL, move);
+	    for (int i = 0; i < 12; i++) {
+		int slot = (int)(cube >>> numBits*i) & 0b11111;
+		targets[move][slot >>> 1] = i;
+		flips[move][slot >>> 1] = slot & 1;
+	    }
+	}
+	int[] offsets = new int[12];
+	Arrays.fill(offsets, -1);
+	for (int root = 0; root < 12; root++) {
+	    if (offsets[root] >= 0)
+		continue;
+	    offsets[root] = 0;
+	    for (boolean changed = true; changed; ) {
+		changed = false;
+		for (int move = 0; move < numMoves; move++) {
+		    if ((phase2Moves & (1 << move)) == 0)
+			continue;
+		    for (int i = 0; i < 12; i++) {
+			int j = targets[move][i];
+			if (offsets[i] >= 0 && offsets[j] < 0) {
+			    offsets[j] = offsets[i] ^ flips[move][i];
+			    changed = true;
+			}
+		    }
+		}
+	    }
+	}
+	for (int move = 0; move < numMoves; move++)
+	    for (int i = 0; i < 12; i++)
+		if ((phase2Moves & (1 << move)) != 0
+		    && (offsets[i] ^ offsets[targets[move][i]]) != flips[move][i])
+		    throw new IllegalStateException("The G1 moves change the flip");
+	System.arraycopy(offsets, 0, flipOffsets, 0, 12);
+	for (int move = 0; move < numMoves; move++)
+	    if ((phase2Moves & (1 << move)) != 0
+		&& CoordinateMoves.moveTwist(0, move) != 0)
+		throw new IllegalStateException("The G1 moves change the twist");
+	
+	for (int f = 0; f < numFlips; f++) {
+	    long cube = CoordinateMoves.flipCube(f);
+	    for (int move = 0; move < numMoves; move++)
+		flipMoves[f*numMoves + move] =
+		    (short)flip(EdgeCubeMoves.rotate(cube, move));
+	}
+	// number the sets of four slots in order of their bit masks
+	Arrays.fill(sliceIds, (short)-1);
+	int[] sliceMasks = new int[NUM_SLICES];
+	int count = 0;
+	for (int mask = 0; mask < (1 << 12); mask++)
+	    if (Integer.bitCount(mask) == 4) {
+		sliceMasks[count] = mask;
+		sliceIds[mask] = (short)count++;
+	    }
+	for (int s = 0; s < NUM_SLICES; s++) {
+	    long cube = sliceCube(sliceMasks[s]);
+	    for (int move = 0; move < numMoves; move++)
+		sliceMoves[s*numMoves + move] =
+		    (short)slice(EdgeCubeMoves.rotate(cube, move));
+	}
+	goalSlice = slice(EdgeCubeMoves.GOAL);
+	// number the arrangements of the slice edges in the slice as phase 2
+	// reaches them from the solved cube
+	Arrays.fill(slicePermutations, (byte)-1);
+	int[] permutationPositions = new int[NUM_SLICE_PERMUTATIONS];
+	permutationPositions[0] = CoordinateMoves.positions(2, EdgeCubeMoves.GOAL);
+	slicePermutations[permutationPositions[0]] = 0;
+	count = 1;
+	for (int p = 0; p < count; p++)
+	    for (int move = 0; move < numMoves; move++) {
+		if ((phase2Moves & (1 << move)) == 0)
+		    continue;
+		int next = CoordinateMoves.movePositions(2, permutationPositions[p],
+							 move);
+		if (slicePermutations[next] < 0) {
+		    permutationPositions[count] = next;
+		    slicePermutations[next] = (byte)count++;
+		}
+		slicePermutationMoves[p*numMoves + move] = slicePermutations[next];
+	    }
+	if (count != NUM_SLICE_PERMUTATIONS)
+	    throw new IllegalStateException("Found " + count + " slice permutations");
+	
+	int[] twists = new int[numTwists * numMoves];
+	for (int t = 0; t < numTwists; t++)
+	    for (int move = 0; move < numMoves; move++)
+		twists[t*numMoves + move] = CoordinateMoves.moveTwist(t, move);
+	int[] permutations = new int[numPermutations * numMoves];
+	for (int p = 0; p < numPermutations; p++)
+	    for (int move = 0; move < numMoves; move++)
+		permutations[p*numMoves + move] =
+		    CoordinateMoves.movePermutation(p, move);
+	int[][] positions = new int[2][numPositions * numMoves];
+	for (int g = 0; g < 2; g++)
+	    for (int p = 0; p < numPositions; p++)
+		for (int move = 0; move < numMoves; move++)
+		    positions[g][p*numMoves + move] =
+			CoordinateMoves.movePositions(g, p, move);
+	int[] flipTable = toInts(flipMoves);
+	int[] sliceTable = toInts(sliceMoves);
+	int[] permutationTable = toInts(slicePermutationMoves);
+	twistSliceDistances = distances(twists, numTwists, 0, sliceTable,
+					NUM_SLICES, goalSlice, Moves.ALL_MOVES);
+	flipSliceDistances = distances(flipTable, numFlips, 0, sliceTable,
+				       NUM_SLICES, goalSlice, Moves.ALL_MOVES);
+	cornerSliceDistances =
+	    distances(permutations, numPermutations, goalCorners,
+		      permutationTable, NUM_SLICE_PERMUTATIONS, 0, phase2Moves);
+	orangeSliceDistances =
+	    distances(positions[0], numPositions, goalOrange, permutationTable,
+		      NUM_SLICE_PERMUTATIONS, 0, phase2Moves);
+	redSliceDistances =
+	    distances(positions[1], numPositions, goalRed, permutationTable,
+		      NUM_SLICE_PERMUTATIONS, 0, phase2Moves);
+    }
+	
+    // the cube being solved
+    private long cornerCube;
+    private long edgeCube;
+	
+    // the moves along the current path, through both phases
+    private int[] path = new int[MAX_PHASE1 + MAX_PHASE2];
+	
+    // the shortest solution found so far, or null
+    private int[] best;
+	
+    // told about every solution shorter than the ones before it (may be null)
+    private SolutionListener listener;
+	
+    // the search stops improving its solution once it is this long
+    private int targetLength = TARGET_LENGTH;
+	
+    // the limits, as in IDAStar
+    private long numNodes;
+    private long maxNodes = Long.MAX_VALUE;
+    private long deadline;
+    private boolean hasDeadline;
+    private CancellationToken token;
+    private boolean aborted;
+	
+    // why the search gave up (as in IDAStar.getAbortReason), or 0
+    private int abortReason;
+	
+    // Creates a search for the specified cube, which tells the listener (if
+    // it isn't null) about every solution shorter than the ones before it
+    TwoPhaseSolver(long cornerCube, long edgeCube, SolutionListener listener) {
+	this.cornerCube = cornerCube;
+	this.edgeCube = edgeCube;
+	this.listener = listener;
+    }
+	
+    // sets the limits of the search, as IDAStar.setLimits does
+    void setLimits(long maxNodes, boolean hasDeadline, long deadline,
+		   CancellationToken token) {
+	this.maxNodes = maxNodes;
+	this.hasDeadline = hasDeadline;
+	this.deadline = deadline;
+	this.token = token;
+    }
+	
+    // sets the length at which the search stops improving its solution
+    void setTargetLength(int targetLength) {
+	this.targetLength = targetLength;
+    }
+	
+    // returns the number of nodes expanded in both phases
+    long getNumNodes() {
+	return numNodes;
+    }
+	
+    // Returns why the search gave up (SolveResult.NODE_LIMIT, TIME_LIMIT or
+    // CANCELLED), or 0 if it didn't
+    int getAbortReason() {
+	return abortReason;
+    }
+	
+    // Returns the shortest solution found, once it is no longer than the
+    // target length, every phase 1 solution has been tried, or the search
+    // runs out of its limits.  Returns null if no solution was found (which
+    // only happens if the search runs out of its limits first)
+    int[] solve() {
+	int twist = CoordinateMoves.twist(cornerCube);
+	int flip = flip(edgeCube);
+	int slice = slice(edgeCube);
+	for (int depth = phase1Estimate(twist, flip, slice);
+	     depth <= MAX_PHASE1 && (best == null || depth < best.length);
+	     depth++)
+	    if (phase1(twist, flip, slice, 0, depth, Moves.NONE) || aborted)
+		break;
+	return best;
+    }
+	
+    // Searches for phase 1 solutions remaining moves long, below the cube
+    // reached by the first depth moves of path.  Returns true once the
+    // search should stop
+    private boolean phase1(int twist, int flip, int slice, int depth,
+			   int remaining, int lastMove) {
+	if (outOfLimits())
+	    return true;
+	if (remaining == 0) {
+	    // A solution ending in a G1 move would have reached G1 a move
+	    // earlier, and been finished by phase 2 then
+	    if (twist == 0 && flip == 0 && slice == goalSlice
+		&& (depth == 0 || (phase2Moves & (1 << lastMove)) == 0))
+		return phase2(depth);
+	    return false;
+	}
+	if (phase1Estimate(twist, flip, slice) > remaining)
+	    return false;
+	int successors = Moves.successors(lastMove);
+	for (int move = 0; move < numMoves; move++) {
+	    if ((successors & (1 << move)) == 0)
+		continue;
+	    path[depth] = move;
+	    if (phase1(CoordinateMoves.moveTwist(twist, move),
+		       flipMoves[flip*numMoves + move],
+		       sliceMoves[slice*numMoves + move], depth + 1,
+		       remaining - 1, move))
+		return true;
+	}
+	return false;
+    }
+	
+    // Finishes the phase 1 solution made of the first depth moves of path
+    // with the shortest phase 2 solution that improves on the best solution.
+    // Returns true once the search should stop
+    private boolean phase2(int depth) {
+	long corners = cornerCube;
+	long edges = edgeCube;
+	for (int i = 0; i < depth; i++) {
+	    corners = CornerCubeMoves.rotate(corners, path[i]);
+	    edges = EdgeCubeMoves.rotate(edges, path[i]);
+	}
+	int permutation = CoordinateMoves.permutation(corners);
+	int orange = CoordinateMoves.positions(0, edges);
+	int red = CoordinateMoves.positions(1, edges);
+	int slice = slicePermutations[CoordinateMoves.positions(2, edges)];
+	int lastMove = depth > 0 ? path[depth - 1] : Moves.NONE;
+	int maxLength = Math.min(MAX_PHASE2,
+				 (best == null ? Integer.MAX_VALUE : best.length)
+				 - 1 - depth);
+	for (int length = phase2Estimate(permutation, orange, red, slice);
+	     length <= maxLength; length++) {
+	    if (phase2(permutation, orange, red, slice, depth, length, lastMove)) {
+		best = Arrays.copyOf(path, depth + length);
+		if (listener != null)
+		    listener.solutionFound(best.clone(), false);
+		return best.length <= targetLength;
+	    }
+	    if (aborted)
+		return true;
+	}
+	return aborted;
+    }
+	
+    // Searches for phase 2 solutions remaining moves long.  Returns true if
+    // one was found (and written to path)
+    private boolean phase2(int permutation, int orange, int red, int slice,
+			   int depth, int remaining, int lastMove) {
+	if (outOfLimits())
+	    return false;
+	if (remaining == 0)
+	    return permutation == goalCorners && orange == goalOrange
+		&& red == goalRed && slice == 0;
+	if (phase2Estimate(permutation, orange, red, slice) > remaining)
+	    return false;
+	int successors = Moves.successors(lastMove) & phase2Moves;
+	for (int move = 0; move < numMoves; move++) {
+	    if ((successors & (1 << move)) == 0)
+		continue;
+	    path[depth] = move;
+	    if (phase2(CoordinateMoves.movePermutation(permutation, move),
+		       CoordinateMoves.movePositions(0, orange, move),
+		       CoordinateMoves.movePositions(1, red, move),
+		       slicePermutationMoves[slice*numMoves + move], depth + 1,
+		       remaining - 1, move))
+		return true;
+	}
+	return false;
+    }
+	
+    // Counts a node, and returns true if the search has run out of its
+    // limits (checking the clock and the token only every 1024 nodes)
+    private boolean outOfLimits() {
+	if (aborted)
+	    return true;
+	numNodes++;
+	if (numNodes > maxNodes)
+	    abortReason = SolveResult.NODE_LIMIT;
+	else if ((numNodes & 0x3FF) == 0) {
+	    if (token != null && token.isCancelled())
+		abortReason = SolveResult.CANCELLED;
+	    else if (hasDeadline && System.nanoTime() - deadline > 0)
+		abortReason = SolveResult.TIME_LIMIT;
+	}
+	aborted = abortReason != 0;
+	return aborted;
+    }
+	
+    // returns a lower bound on the length of phase 1
+    private static int phase1Estimate(int twist, int flip, int slice) {
+	return Math.max(twistSliceDistances[twist*NUM_SLICES + slice],
+			flipSliceDistances[flip*NUM_SLICES + slice]);
+    }
+	
+    // returns a lower bound on the length of phase 2
+    private static int phase2Estimate(int permutation, int orange, int red,
+				      int slice) {
+	int n = NUM_SLICE_PERMUTATIONS;
+	return Math.max(cornerSliceDistances[permutation*n + slice],
+			Math.max(orangeSliceDistances[orange*n + slice],
+				 redSliceDistances[red*n + slice]));
+    }
+	
+    // Returns the phase 1 flip coordinate of the edge cube: the flips of
+    // slots 0..10 by the measure of flipOffsets, read as a binary number
+    private static int flip(long edgeCube) {
+	int flip = 0;
+	for (int i = 0; i < 11; i++) {
+	    int slot = (int)(edgeCube >>> numBits*i) & 0b11111;
+	    flip = (flip << 1)
+		| ((slot & 1) ^ flipOffsets[i] ^ flipOffsets[slot >>> 1]);
+	}
+	return flip;
+    }
+	
+    // returns the phase 1 slice coordinate of the edge cube
+    private static int slice(long edgeCube) {
+	int mask = 0;
+	for (int i = 0; i < 12; i++) {
+	    int cubie = (int)(edgeCube >>> (numBits*i + 1)) & 0b1111;
+	    if (isSliceEdge(cubie))
+		mask |= 1 << i;
+	}
+	return sliceIds[mask];
+    }
+	
+    // returns whether the edge cubie is one of the slice edges
+    private static boolean isSliceEdge(int cubie) {
+	for (int edge : CoordinateMoves.SLICE_EDGES)
+	    if (edge == cubie)
+		return true;
+	return false;
+    }
+	
+    // Returns an edge cube with the slice edges in the slots of the mask, and
+    // the other edges in the other slots
+    private static long sliceCube(int mask) {
+	long cube = 0L;
+	int slice = 0;
+	int other = 0;
+	int[] others = new int[8];
+	for (int cubie = 0; cubie < 12; cubie++)
+	    if (!isSliceEdge(cubie))
+		others[other++] = cubie;
+	other = 0;
+	for (int i = 0; i < 12; i++) {
+	    int cubie = (mask & (1 << i)) != 0
+		? CoordinateMoves.SLICE_EDGES[slice++] : others[other++];
+	    cube |= (long)(cubie << 1) << numBits*i;
+	}
+	return cube;
+    }
+	
+    // returns the table as ints, for distances
+    private static int[] toInts(short[] table) {
+	int[] ints = new int[table.length];
+	for (int i = 0; i < table.length; i++)
+	    ints[i] = table[i];
+	return ints;
+    }
+	
+    private static int[] toInts(byte[] table) {
+	int[] ints = new int[table.length];
+	for (int i = 0; i < table.length; i++)
+	    ints[i] = table[i];
+	return ints;
+    }
+	
+    // Returns the number of moves (from the mask) needed to take every pair
+    // of coordinates (a, b) to (goalA, goalB), indexed by a * sizeB + b.  The
+    // move tables are indexed by coordinate * NUM_MOVES + move.  Pairs that
+    // can't be reached are left at -1
+    private static byte[] distances(int[] movesA, int sizeA, int goalA,
+				    int[] movesB, int sizeB, int goalB,
+				    int moveMask) {
+	byte[] distances = new byte[sizeA * sizeB];
+	Arrays.fill(distances, (byte)-1);
+	distances[goalA*sizeB + goalB] = 0;
+	// one distance at a time, as in PatternGenerator.byLevels
+	for (int depth = 0, found = 1; found > 0; depth++) {
+	    found = 0;
+	    for (int index = 0; index < distances.length; index++) {
+		if (distances[index] != depth)
+		    continue;
+		int a = index / sizeB;
+		int b = index % sizeB;
+		for (int move = 0; move < numMoves; move++) {
+		    if ((moveMask & (1 << move)) == 0)
+			continue;
+		    int next = movesA[a*numMoves + move] * sizeB
+			+ movesB[b*numMoves + move];
+		    if (distances[next] < 0) {
+			distances[next] = (byte)(depth + 1);
+			found++;
+		    }
+		}
+	    }
+	}
+	return distances;
+    }
+}
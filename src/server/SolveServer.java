@@ -0,0 +1,266 @@
+package server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import input.*;
+import search.*;
+
+// class SolveServer serves a CubeSolver over HTTP, so that one process with
+// the tables loaded can solve the cubes of many clients.
+//
+//   POST /solve[?maxNodes=n&maxMillis=t&maxDepth=d&anytime=true]
+//
+// The request body is a cube in either form input.CubeState.parse reads
+// (facelets or a scramble).  With anytime=true, the cube is solved with
+// CubeSolver.solveAnytime, so a search that runs out of its limits still
+// answers with the shortest solution it found (marked "optimal":false).  The
+// response is the JSON of the search.SolveResult, with status
+//
+//   200  the cube was searched (the JSON holds an error if the search ran
+//        out of its limits before finding a solution)
+//   400  the body isn't a solvable cube, or the limits aren't numbers
+//   429  every solving thread is busy and the queue is full; try again later
+//   500  the solver failed (the details are only logged by the server)
+//   503  the server is stopping
+//
+// The cubes are solved on a fixed number of threads, behind a queue of fixed
+// length.  Once the queue is full, new requests are turned away at once
+// instead of piling up, so a burst of deep scrambles can't take down the
+// server.  Every solve is held to the server's limits, or to tighter ones
+// given in the request.
+public class SolveServer {
+    // the longest request body read, which is plenty for any cube
+    private static final int MAX_BODY = 4096;
+	
+    private final CubeSolver solver;
+    private final SolveLimits limits;
+    private final HttpServer server;
+	
+    // cancelled when the server stops, to stop the solves under way
+    private final CancellationToken stopping = new CancellationToken();
+	
+    // the threads the cubes are solved on, and the threads that read the
+    // requests and queue them
+    private final ThreadPoolExecutor solvers;
+    private final ExecutorService handlers;
+	
+    // Creates a server on the specified port which solves up to threads cubes
+    // at once, with up to queueLength more waiting, each within the limits
+    public SolveServer(CubeSolver solver, int port, int threads,
+		       int queueLength, SolveLimits limits) throws IOException {
+	this.solver = solver;
+	this.limits = limits;
+	solvers = new ThreadPoolExecutor(threads, threads, 0L,
+					 TimeUnit.MILLISECONDS,
+					 new ArrayBlockingQueue<Runnable>(queueLength));
+	handlers = Executors.newFixedThreadPool(2);
+	server = HttpServer.create(new InetSocketAddress(port), 0);
+	server.createContext("/solve", new HttpHandler() {
+		public void handle(HttpExchange exchange) throws IOException {
+		    handleSolve(exchange);
+		}
+	    });
+	server.setExecutor(handlers);
+    }
+	
+    // starts answering requests
+    public void start() {
+	server.start();
+    }
+	
+    // Stops the server, cancelling the solves under way and those still
+    // queued (which answer with outcome "cancelled"), and waiting up to the
+    // specified number of seconds for the responses to go out.  A request
+    // still queued after that is answered with status 503
+    public void stop(int seconds) {
+	stopping.cancel();
+	// the solves still queued give up as soon as they start
+	solvers.shutdown();
+	try {
+	    solvers.awaitTermination(seconds, TimeUnit.SECONDS);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+	for (Runnable task : solvers.shutdownNow())
+	    ((SolveTask)task).reject();
+	server.stop(seconds);
+	handlers.shutdown();
+    }
+	
+    // returns the port the server listens on
+    public int getPort() {
+	return server.getAddress().getPort();
+    }
+	
+    // Reads a cube from the request and queues it to be solved.  The
+    // response is sent by the solving thread once the cube is solved
+    private void handleSolve(HttpExchange exchange) throws IOException {
+	if (!exchange.getRequestURI().getPath().equals("/solve")) {
+	    respond(exchange, 404, error("Not found"));
+	    return;
+	}
+	if (!exchange.getRequestMethod().equals("POST")) {
+	    exchange.getResponseHeaders().set("Allow", "POST");
+	    respond(exchange, 405, error("Use POST"));
+	    return;
+	}
+	CubeState cube;
+	SolveLimits requestLimits;
+	boolean anytime;
+	try {
+	    requestLimits = limits.min(parseLimits(exchange.getRequestURI()));
+	    anytime = isAnytime(exchange.getRequestURI());
+	    cube = CubeState.parse(readBody(exchange.getRequestBody()));
+	} catch (IllegalArgumentException e) {
+	    respond(exchange, 400, error(e.getMessage()));
+	    return;
+	}
+	try {
+	    solvers.execute(new SolveTask(exchange, cube, requestLimits,
+					  anytime));
+	} catch (RejectedExecutionException e) {
+	    if (solvers.isShutdown()) {
+		respond(exchange, 503, error("The server is stopping"));
+		return;
+	    }
+	    exchange.getResponseHeaders().set("Retry-After", "1");
+	    respond(exchange, 429, error("Too many cubes waiting"));
+	}
+    }
+	
+    // Solves a queued cube on a solving thread and answers its request
+    private class SolveTask implements Runnable {
+	private final HttpExchange exchange;
+	private final CubeState cube;
+	private final SolveLimits limits;
+	private final boolean anytime;
+	
+	SolveTask(HttpExchange exchange, CubeState cube, SolveLimits limits,
+		  boolean anytime) {
+	    this.exchange = exchange;
+	    this.cube = cube;
+	    this.limits = limits;
+	    this.anytime = anytime;
+	}
+	
+	public void run() {
+	    try {
+		SolveResult result;
+		try {
+		    result = anytime
+			? solver.solveAnytime(cube, limits, stopping, null)
+			: solver.solve(cube, limits, stopping);
+		} catch (RuntimeException e) {
+		    // a bug in the solver; the details go to the server's log,
+		    // not to the client
+		    System.err.println("Unable to solve a cube:");
+		    e.printStackTrace();
+		    respond(exchange, 500, error("internal error"));
+		    return;
+		}
+		respond(exchange, 200, result.toJson());
+	    } catch (IOException e) {
+		// the client has gone; nothing left to do
+	    }
+	}
+	
+	// answers the request of a cube the server stopped before solving
+	void reject() {
+	    try {
+		respond(exchange, 503, error("The server is stopping"));
+	    } catch (IOException e) {
+		// the client has gone; nothing left to do
+	    }
+	}
+    }
+	
+    // Returns the limits given by the request's query string, which may set
+    // maxNodes, maxMillis and maxDepth
+    private static SolveLimits parseLimits(URI uri) {
+	long maxNodes = Long.MAX_VALUE;
+	long maxMillis = Long.MAX_VALUE;
+	int maxDepth = IDAStar.GODS_NUMBER;
+	String query = uri.getQuery();
+	if (query != null) {
+	    for (String parameter : query.split("&")) {
+		int split = parameter.indexOf('=');
+		String name = split < 0 ? parameter : parameter.substring(0, split);
+		String value = split < 0 ? "" : parameter.substring(split + 1);
+		try {
+		    if (name.equals("maxNodes"))
+			maxNodes = Long.parseLong(value);
+		    else if (name.equals("maxMillis"))
+			maxMillis = Long.parseLong(value);
+		    else if (name.equals("maxDepth"))
+			maxDepth = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+		    throw new IllegalArgumentException("Invalid " + name + ": " + value);
+		}
+	    }
+	}
+	return new SolveLimits(maxNodes, maxMillis, maxDepth);
+    }
+	
+    // Returns whether the request's query string asks for an anytime solve
+    // (anytime=true or anytime=false, which is the default)
+    private static boolean isAnytime(URI uri) {
+	String query = uri.getQuery();
+	if (query == null)
+	    return false;
+	boolean anytime = false;
+	for (String parameter : query.split("&")) {
+	    if (parameter.equals("anytime=true"))
+		anytime = true;
+	    else if (parameter.startsWith("anytime=")
+		     && !parameter.equals("anytime=false"))
+		throw new IllegalArgumentException("Invalid anytime: "
+						   + parameter.substring(8));
+	}
+	return anytime;
+    }
+	
+    // reads the request body, up to MAX_BODY bytes
+    private static String readBody(InputStream in) throws IOException {
+	ByteArrayOutputStream body = new ByteArrayOutputStream();
+	byte[] buffer = new byte[1024];
+	int count;
+	while ((count = in.read(buffer)) > 0) {
+	    body.write(buffer, 0, count);
+	    if (body.size() > MAX_BODY)
+		throw new IllegalArgumentException("The request is too long");
+	}
+	return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+	
+    // returns the JSON of an error response
+    private static String error(String message) {
+	return "{\"error\":" + SolveResult.quote(message) + "}";
+    }
+	
+    // sends the response and closes the exchange
+    private static void respond(HttpExchange exchange, int status, String json)
+	throws IOException {
+	byte[] body = (json + "\n").getBytes(StandardCharsets.UTF_8);
+	exchange.getResponseHeaders().set("Content-Type", "application/json");
+	exchange.sendResponseHeaders(status, body.length);
+	OutputStream out = exchange.getResponseBody();
+	out.write(body);
+	out.close();
+    }
+}
@@ -1,9 +1,13 @@
 package structures;
 
+import java.util.Arrays;
+
+import rotations.*;
+
 // CubeTracer stores the move sequence that's been applied to the cube
 public class CubeTracer {
-    // Stores the moves as Strings in an array
-    private String[] sequence;
+    // Stores the moves (constants from rotations.Moves) in an array
+    private byte[] sequence;
 	
     // index of the current move
     private int counter;
@@ -17,40 +21,55 @@ public class CubeTracer {
 	if(length < 1)
 	    throw new IllegalArgumentException("Tracer length must be greater than 0");
 	this.length = length;
-	sequence = new String[length];
+	sequence = new byte[length];
 	counter = 0;
-	sequence[0] = "The cube is already solved!";
     }
 	
-    // Adds a new move to the sequence
-    public void writeMove(String move) {
+    // Adds a new move to the sequence.  The search looks one move past the
+    // longest sequence it can accept, so the array grows rather than
+    // overwriting the first moves
+    public void writeMove(int move) {
+	if (counter == sequence.length)
+	    sequence = Arrays.copyOf(sequence, 2 * sequence.length);
 	// store move
-	sequence[counter] = move;
+	sequence[counter] = (byte)move;
 	// increment counter
-	counter = (counter + 1) % length;
+	counter++;
     }
 	
     // Erases the last move that was stored
     public void eraseMove() {
 	// decrement counter
-	counter--;
-	if(counter == -1)
-	    counter = length - 1;
-	// erase move
-	sequence[counter] = null;
+	if (counter > 0)
+	    counter--;
+    }
+	
+    // returns the number of moves in the sequence
+    public int getLength() {
+	return counter;
+    }
+	
+    // returns the moves in the sequence
+    public int[] getMoves() {
+	int[] moves = new int[counter];
+	for (int i = 0; i < counter; i++)
+	    moves[i] = sequence[i];
+	return moves;
     }
 	
-    // returns the move sequence
+    // returns the move sequence as names for printing, padded with nulls to
+    // the length of the tracer
     public String[] getSequence() {
-	return sequence;
+	String[] names = new String[Math.max(length, counter)];
+	for (int i = 0; i < counter; i++)
+	    names[i] = Moves.toString(sequence[i]);
+	if (counter == 0)
+	    names[0] = "The cube is already solved!";
+	return names;
     }
 	
     // resets the cube tracer
     public void reset() {
 	counter = 0;
-	for (int i = 0; i < length; i++) {
-	    sequence[i] = null;
-	}
-	sequence[0] = "The cube is already solved!";
     }
 }
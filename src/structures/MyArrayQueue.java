@@ -39,9 +39,11 @@ public class MyArrayQueue implements MyQueue {
     }
 	
     public void add(long element) {
-	if (isEmpty())
+	if (isEmpty()) {
+	    // the tail may have been left behind the head by remove()
+	    tail = head;
 	    queue[head] = element;
-	else {
+	} else {
 	    tail = (tail + 1) % capacity;
 	    queue[tail] = element;
 	}
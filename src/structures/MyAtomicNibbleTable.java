@@ -0,0 +1,81 @@
+package structures;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// A table of 4-bit values laid out like MyNibbleTable, which any number of
+// threads can fill at once.  Eight entries are packed into each int, and
+// entries are written with compare-and-set, so two threads writing
+// neighboring entries never lose each other's writes.  Once filled, the
+// table is copied into a MyNibbleTable for use (and saving)
+public class MyAtomicNibbleTable {
+    // value of an entry that hasn't been written yet
+    public static final int EMPTY = MyNibbleTable.EMPTY;
+	
+    private AtomicIntegerArray table;
+    private int capacity;
+	
+    // Creates a table of the given capacity, with every entry set to EMPTY
+    public MyAtomicNibbleTable(int capacity) {
+	this.capacity = capacity;
+	table = new AtomicIntegerArray((int)(((long)capacity + 7) / 8));
+	for (int i = 0; i < table.length(); i++)
+	    table.set(i, -1);
+    }
+	
+    // Creates a table holding the same values as the specified one (e.g. one
+    // partly filled in, to carry on from)
+    public MyAtomicNibbleTable(MyNibbleTable from) {
+	this(from.getCapacity());
+	ByteBuffer bytes = from.getTable();
+	for (int i = 0; i < bytes.capacity(); i++) {
+	    // byte i is byte (i % 4) of int i / 4, as in toNibbleTable
+	    int shift = (i & 3) << 3;
+	    int word = i >>> 2;
+	    table.set(word, (table.get(word) & ~(0xFF << shift))
+		      | (bytes.get(i) & 0xFF) << shift);
+	}
+    }
+	
+    // Sets the entry at the specified index to a value in [0, 15], if it is
+    // still EMPTY.  Returns true if this call wrote the value, or false if
+    // the entry had already been written (by any thread)
+    public boolean putIfEmpty(int index, int value) {
+	int shift = (index & 7) << 2;
+	int word = index >>> 3;
+	while (true) {
+	    int packed = table.get(word);
+	    if (((packed >>> shift) & 0b1111) != EMPTY)
+		return false;
+	    int updated = (packed & ~(0b1111 << shift)) | (value << shift);
+	    if (table.compareAndSet(word, packed, updated))
+		return true;
+	}
+    }
+	
+    // returns the value associated with the specified index (EMPTY if none
+    // has been stored there)
+    public int get(int index) {
+	return (table.get(index >>> 3) >>> ((index & 7) << 2)) & 0b1111;
+    }
+	
+    // returns the number of entries in the table
+    public int getCapacity() {
+	return capacity;
+    }
+	
+    // Returns a copy of the table as a MyNibbleTable.  Call it only once
+    // every thread has finished writing
+    public MyNibbleTable toNibbleTable() {
+	// the low nibble of the little-endian int holds the lowest index, just
+	// as the low nibble of a MyNibbleTable byte does
+	ByteBuffer bytes = ByteBuffer.allocate(table.length() * 4)
+	    .order(ByteOrder.LITTLE_ENDIAN);
+	for (int i = 0; i < table.length(); i++)
+	    bytes.putInt(table.get(i));
+	bytes.position(0);
+	bytes.limit(MyNibbleTable.numBytes(capacity));
+	return new MyNibbleTable(bytes.slice(), capacity);
+    }
+}
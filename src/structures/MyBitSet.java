@@ -0,0 +1,39 @@
+package structures;
+
+// Fixed-size set of the integers in [0, capacity), one bit each.  Used as
+// the set of discovered states by a breadth-first search over a perfect hash
+// of the states (e.g. heuristics.CornerIndexer).  Every state has a bit of
+// its own, so the set never mistakes a new state for a discovered one
+public class MyBitSet {
+    private long[] words;
+    private int capacity;
+	
+    // Creates an empty set for the integers in [0, capacity)
+    public MyBitSet(int capacity) {
+	this.capacity = capacity;
+	words = new long[(int)(((long)capacity + 63) >>> 6)];
+    }
+	
+    // returns true if the specified integer is in the set; else false
+    public boolean contains(int index) {
+	return (words[index >>> 6] & (1L << index)) != 0;
+    }
+	
+    // adds the specified integer to the set
+    public void add(int index) {
+	words[index >>> 6] |= 1L << index;
+    }
+	
+    // returns the number of integers in the set
+    public int size() {
+	int size = 0;
+	for (long word : words)
+	    size += Long.bitCount(word);
+	return size;
+    }
+	
+    // returns the size of the range the set covers
+    public int getCapacity() {
+	return capacity;
+    }
+}
@@ -0,0 +1,106 @@
+package structures;
+
+// Hash map from a pair of longs (a whole cube: its corner cube and its edge
+// cube) to a small value in [0, 127).  Like MyHashMap, it probes plain
+// arrays rather than chaining nodes, so no entry is an object of its own: a
+// slot takes 17 bytes.  The table doubles once it is 70% full.  Entries
+// can't be removed
+public class MyLongPairMap {
+    // the table grows once it is this full
+    private static final double MAX_LOAD = 0.7;
+	
+    // The keys of each slot, and its value plus one (0 marks an empty slot,
+    // so no key needs to be set aside to mark one)
+    private long[] firstKeys;
+    private long[] secondKeys;
+    private byte[] values;
+	
+    private int size;
+	
+    // number of bits of the hash used as the slot index
+    private int bits;
+	
+    // Creates an empty map with room for about expectedSize entries before
+    // it has to grow
+    public MyLongPairMap(int expectedSize) {
+	bits = 4;
+	while ((1 << bits) * MAX_LOAD < expectedSize)
+	    bits++;
+	allocate();
+    }
+	
+    // Returns the value of the specified key, or -1 if the map doesn't hold
+    // the key
+    public int get(long first, long second) {
+	int mask = values.length - 1;
+	for (int slot = slot(first, second); values[slot] != 0;
+	     slot = (slot + 1) & mask)
+	    if (firstKeys[slot] == first && secondKeys[slot] == second)
+		return values[slot] - 1;
+	return -1;
+    }
+	
+    // returns true if the map holds the specified key; else false
+    public boolean containsKey(long first, long second) {
+	return get(first, second) >= 0;
+    }
+	
+    // Maps the key to the value, unless the map holds the key already.
+    // Returns true if the key was added, false if it was there
+    public boolean putIfAbsent(long first, long second, int value) {
+	if (value < 0 || value >= Byte.MAX_VALUE)
+	    throw new IllegalArgumentException("Value out of range: " + value);
+	int mask = values.length - 1;
+	int slot = slot(first, second);
+	for (; values[slot] != 0; slot = (slot + 1) & mask)
+	    if (firstKeys[slot] == first && secondKeys[slot] == second)
+		return false;
+	firstKeys[slot] = first;
+	secondKeys[slot] = second;
+	values[slot] = (byte)(value + 1);
+	if (++size > values.length * MAX_LOAD)
+	    grow();
+	return true;
+    }
+	
+    // returns the number of entries in the map
+    public int size() {
+	return size;
+    }
+	
+    // returns the number of slots in the table
+    public int getCapacity() {
+	return values.length;
+    }
+	
+    // Returns the slot the key hashes to.  The edge cube and the corner cube
+    // are mixed with different odd multipliers, and the top bits of the
+    // product (which depend on every bit of the key) are used
+    private int slot(long first, long second) {
+	long hash = first * 0x9E3779B97F4A7C15L + second * 0xC2B2AE3D27D4EB4FL;
+	hash ^= hash >>> 29;
+	hash *= 0xBF58476D1CE4E5B9L;
+	return (int)(hash >>> (64 - bits));
+    }
+	
+    // allocates empty arrays of 2^bits slots
+    private void allocate() {
+	firstKeys = new long[1 << bits];
+	secondKeys = new long[1 << bits];
+	values = new byte[1 << bits];
+    }
+	
+    // doubles the table, and puts every entry back in it
+    private void grow() {
+	long[] oldFirstKeys = firstKeys;
+	long[] oldSecondKeys = secondKeys;
+	byte[] oldValues = values;
+	bits++;
+	allocate();
+	size = 0;
+	for (int slot = 0; slot < oldValues.length; slot++)
+	    if (oldValues[slot] != 0)
+		putIfAbsent(oldFirstKeys[slot], oldSecondKeys[slot],
+			    oldValues[slot] - 1);
+    }
+}
@@ -0,0 +1,65 @@
+package structures;
+
+import java.nio.ByteBuffer;
+
+// Flat table of 4-bit values, indexed directly by a perfect hash of the key
+// (e.g. heuristics.CornerIndexer).  Since every key has its own slot, no keys
+// are stored and lookups never probe.  Two entries are packed into each byte
+// (the even index in the low nibble), which is plenty for move counts: no
+// pattern database distance comes close to 15.
+//
+// The values are held in a buffer rather than an array so that a table read
+// from disk can be memory-mapped and used as-is.
+public class MyNibbleTable {
+    // value of an entry that hasn't been written yet
+    public static final int EMPTY = 0b1111;
+	
+    private ByteBuffer table;
+    private int capacity;
+	
+    // Creates a table of the given capacity, with every entry set to EMPTY
+    public MyNibbleTable(int capacity) {
+	this.capacity = capacity;
+	table = ByteBuffer.allocate(numBytes(capacity));
+	for (int i = 0; i < table.capacity(); i++)
+	    table.put(i, (byte)-1);
+    }
+	
+    // Wraps a buffer holding a previously filled table of the given capacity,
+    // e.g. a read-only buffer mapped from a heuristic file
+    public MyNibbleTable(ByteBuffer table, int capacity) {
+	if (table.capacity() != numBytes(capacity))
+	    throw new IllegalArgumentException("Buffer doesn't match the capacity");
+	this.capacity = capacity;
+	this.table = table;
+    }
+	
+    // associates the specified index with a value in [0, 15]
+    public void put(int index, int value) {
+	int shift = (index & 1) << 2;
+	int packed = table.get(index >>> 1);
+	packed = (packed & ~(0b1111 << shift)) | (value << shift);
+	table.put(index >>> 1, (byte)packed);
+    }
+	
+    // returns the value associated with the specified index (EMPTY if none
+    // has been stored there)
+    public int get(int index) {
+	return (table.get(index >>> 1) >>> ((index & 1) << 2)) & 0b1111;
+    }
+	
+    // returns the number of entries in the table
+    public int getCapacity() {
+	return capacity;
+    }
+	
+    // returns the packed contents of the table (used when saving it to disk)
+    public ByteBuffer getTable() {
+	return table.duplicate();
+    }
+	
+    // returns the number of bytes needed to hold the given number of entries
+    public static int numBytes(int capacity) {
+	return (int)(((long)capacity + 1) / 2);
+    }
+}